@@ -0,0 +1,97 @@
+package com.mspark.newjava.java9.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * CollectionsImprovements 의 컬렉션 초기화 방식들과, 그 결과물의 contains() 성능을 데이터 크기별로 비교한다.
+ * contains() 는 절반이 존재하는 size 개의 값으로 조회한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CollectionsImprovementsBenchmark {
+
+	@Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	private String[] values;
+	private String[] probes;
+	private Set<String> hashSet;
+	private Set<String> setOf;
+
+	@Setup
+	public void setUp() {
+		values = new String[size];
+		probes = new String[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = "value" + i;
+			probes[i] = "value" + (i * 2);
+		}
+		hashSet = new HashSet<>(Arrays.asList(values));
+		setOf = Set.of(values);
+	}
+
+	@Benchmark
+	public List<String> listAdd_in_old_way() {
+		List<String> list = new ArrayList<String>();
+		for (String value : values) {
+			list.add(value);
+		}
+		return list;
+	}
+
+	@Benchmark
+	public List<String> arraysAsList_in_java5_way() {
+		return Arrays.asList(values);
+	}
+
+	@Benchmark
+	public List<String> listOf_in_java9_way() {
+		return List.of(values);
+	}
+
+	@Benchmark
+	public Set<String> hashSet_in_java5_way() {
+		return new HashSet<>(Arrays.asList(values));
+	}
+
+	@Benchmark
+	public Set<String> setOf_in_java9_way() {
+		return Set.of(values);
+	}
+
+	@Benchmark
+	public void hashSetContains_in_java5_way(Blackhole blackhole) {
+		for (String probe : probes) {
+			blackhole.consume(hashSet.contains(probe));
+		}
+	}
+
+	@Benchmark
+	public void setOfContains_in_java9_way(Blackhole blackhole) {
+		for (String probe : probes) {
+			blackhole.consume(setOf.contains(probe));
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.mspark.newjava.java9.collections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * FrozenCollections 가 만든 구조와 Set.of / Map.of 의 contains(), get() 을 비교한다.
+ * 조회는 절반이 존재하는 size 개의 값으로 한다. 숫자 키는 0 부터 2 씩 증가하는 id 이다. (비트맵, 값 배열 구조가 선택된다)
+ * enum 키는 TimeUnit 의 모든 상수를 size 번 조회한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FrozenCollectionsBenchmark {
+
+	@Param({"16", "1000", "100000", "1000000"})
+	public int size;
+
+	private String[] stringProbes;
+	private int[] idProbes;
+	private Integer[] boxedIdProbes;
+	private TimeUnit[] units;
+
+	private Set<String> setOfStrings;
+	private FrozenStringSet frozenStrings;
+	private Set<Integer> setOfIds;
+	private FrozenIntSet frozenIds;
+	private Map<Integer, String> mapOfIds;
+	private FrozenIntMap<String> frozenIdMap;
+	private Map<TimeUnit, String> mapOfUnits;
+	private FrozenEnumMap<TimeUnit, String> frozenUnitMap;
+
+	@Setup
+	public void setUp() {
+		String[] strings = new String[size];
+		Integer[] ids = new Integer[size];
+		Map<Integer, String> names = new HashMap<>();
+		stringProbes = new String[size];
+		idProbes = new int[size];
+		boxedIdProbes = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			strings[i] = "value" + i;
+			ids[i] = i * 2;
+			names.put(i * 2, strings[i]);
+			stringProbes[i] = "value" + (i * 2);
+			idProbes[i] = i;
+			boxedIdProbes[i] = i;
+		}
+		setOfStrings = Set.of(strings);
+		frozenStrings = FrozenCollections.strings(setOfStrings);
+		setOfIds = Set.of(ids);
+		frozenIds = FrozenCollections.ints(setOfIds.stream().mapToInt(Integer::intValue).toArray());
+		mapOfIds = mapOf(names);
+		frozenIdMap = FrozenCollections.intMap(names);
+
+		Map<TimeUnit, String> unitNames = new HashMap<>();
+		for (TimeUnit unit : TimeUnit.values()) {
+			unitNames.put(unit, unit.name());
+		}
+		mapOfUnits = mapOf(unitNames);
+		frozenUnitMap = FrozenCollections.enumMap(TimeUnit.class, unitNames);
+		units = TimeUnit.values();
+	}
+
+	/**
+	 * source 와 같은 내용의 Map.of 계열 불변 Map
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <K, V> Map<K, V> mapOf(Map<K, V> source) {
+		Map.Entry<K, V>[] entries = source.entrySet().toArray(new Map.Entry[0]);
+		return Map.ofEntries(entries);
+	}
+
+	@Benchmark
+	public void setOfContains_string(Blackhole blackhole) {
+		for (String probe : stringProbes) {
+			blackhole.consume(setOfStrings.contains(probe));
+		}
+	}
+
+	@Benchmark
+	public void frozenContains_string(Blackhole blackhole) {
+		for (String probe : stringProbes) {
+			blackhole.consume(frozenStrings.contains(probe));
+		}
+	}
+
+	@Benchmark
+	public void setOfContains_int(Blackhole blackhole) {
+		for (Integer probe : boxedIdProbes) {
+			blackhole.consume(setOfIds.contains(probe));
+		}
+	}
+
+	@Benchmark
+	public void frozenContains_int(Blackhole blackhole) {
+		for (int probe : idProbes) {
+			blackhole.consume(frozenIds.contains(probe));
+		}
+	}
+
+	@Benchmark
+	public void mapOfGet_int(Blackhole blackhole) {
+		for (Integer probe : boxedIdProbes) {
+			blackhole.consume(mapOfIds.get(probe));
+		}
+	}
+
+	@Benchmark
+	public void frozenGet_int(Blackhole blackhole) {
+		for (int probe : idProbes) {
+			blackhole.consume(frozenIdMap.get(probe));
+		}
+	}
+
+	@Benchmark
+	public void mapOfGet_enum(Blackhole blackhole) {
+		for (int i = 0; i < size; i++) {
+			blackhole.consume(mapOfUnits.get(units[i % units.length]));
+		}
+	}
+
+	@Benchmark
+	public void frozenGet_enum(Blackhole blackhole) {
+		for (int i = 0; i < size; i++) {
+			blackhole.consume(frozenUnitMap.get(units[i % units.length]));
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * convert() 의 환율 곱셈을 기존 Utils.decimal() 경로, BigDecimal 환율의 convert(), ExchangeRate 의 convert(),
+ * 할당 없는 Money.multiplyMinorUnits() 로 비교한다.
+ * 할당량은 -prof gc 로 확인한다. ExchangeRate 의 convert() 는 결과 BigDecimal 만 할당해야 하며,
+ * BigDecimal 환율의 convert() 는 여기에 호출마다 환율을 정규화하는 비용이 더해진다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+	private static final int PRICES = 1024;
+
+	private final BigDecimal[] prices = new BigDecimal[PRICES];
+	private final long[] priceMinorUnits = new long[PRICES];
+	private final BigDecimal rate = new BigDecimal(Currency.GBP.rate.toPlainString());
+	private final ExchangeRate exchangeRate = Currency.GBP.exchangeRate;
+	private final long rateUnits = exchangeRate.units();
+	private final int rateScale = exchangeRate.scale();
+
+	@Setup
+	public void setUp() {
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < PRICES; i++) {
+			prices[i] = Utils.decimal(random.nextInt(100, 1_300) + random.nextInt(100) / 100.0);
+			priceMinorUnits[i] = prices[i].unscaledValue().longValueExact();
+		}
+	}
+
+	@Benchmark
+	public void utilsDecimal(Blackhole blackhole) {
+		for (BigDecimal price : prices) {
+			blackhole.consume(Utils.decimal(price.multiply(rate)));
+		}
+	}
+
+	@Benchmark
+	public void convert(Blackhole blackhole) {
+		for (BigDecimal price : prices) {
+			blackhole.consume(CompletableFutureImprovements.convert(price, rate));
+		}
+	}
+
+	@Benchmark
+	public void convertExchangeRate(Blackhole blackhole) {
+		for (BigDecimal price : prices) {
+			blackhole.consume(CompletableFutureImprovements.convert(price, exchangeRate));
+		}
+	}
+
+	@Benchmark
+	public void moneyMinorUnits(Blackhole blackhole) {
+		for (long price : priceMinorUnits) {
+			blackhole.consume(Money.multiplyMinorUnits(price, rateUnits, rateScale));
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PipelineMetrics 로 감쌌을 때 단계당 추가되는 비용을 측정한다. 목표는 단계당 100ns 이하이다.
+ * 지연시간 없이 바로 끝나는 bestFor/rateFor/convert 를 사용하므로 측정값의 차이가 곧 계측 비용이다.
+ * _contended 는 4 개의 스레드가 같은 히스토그램에 동시에 기록하는 경우이다.
+ * timed() 는 단계당 System.nanoTime() 을 두번 호출하므로, 계측 비용의 하한은 nanoTime 측정값의 두배이다. (OS 의 clock source 에 따라 크게 다르다)
+ * pipeline_traced 는 InstrumentedQuotePipeline 처럼 요청마다 Trace 를 사용하므로 nanoTime 은 단계당 한번이다.
+ * 단계당 비용은 (pipeline_traced - pipeline_plain) / 3 으로 구한다. (Trace 를 만들 때의 nanoTime 포함)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineMetricsBenchmark {
+	private final BigDecimal price = new BigDecimal("902.48");
+	private final BigDecimal rate = Currency.GBP.rate;
+	private final PipelineMetrics metrics = new PipelineMetrics();
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	private final Supplier<BigDecimal> bestFor = () -> price;
+	private final Supplier<BigDecimal> rateFor = () -> rate;
+	private final BiFunction<BigDecimal, BigDecimal, BigDecimal> convert = CompletableFutureImprovements::convert;
+	private final Supplier<BigDecimal> timedBestFor = metrics.timed(PipelineStage.BEST_FOR, bestFor);
+	private final Supplier<BigDecimal> timedRateFor = metrics.timed(PipelineStage.RATE_FOR, rateFor);
+	private final BiFunction<BigDecimal, BigDecimal, BigDecimal> timedConvert = metrics.timed(PipelineStage.CONVERT, convert);
+
+	@Benchmark
+	public long nanoTime() {
+		return System.nanoTime();
+	}
+
+	@Benchmark
+	public long histogramRecord() {
+		histogram.record(123_456);
+		return 123_456;
+	}
+
+	@Benchmark
+	public BigDecimal stage_plain() {
+		return bestFor.get();
+	}
+
+	@Benchmark
+	public BigDecimal stage_timed() {
+		return timedBestFor.get();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public BigDecimal stage_timed_contended() {
+		return timedBestFor.get();
+	}
+
+	@Benchmark
+	public BigDecimal pipeline_plain() {
+		return CompletableFuture.completedFuture(bestFor.get())
+								.thenCombine(CompletableFuture.completedFuture(rateFor.get()), convert)
+								.join();
+	}
+
+	@Benchmark
+	public BigDecimal pipeline_traced() {
+		PipelineMetrics.Trace trace = metrics.trace();
+		return CompletableFuture.completedFuture(trace.timed(PipelineStage.BEST_FOR, bestFor).get())
+								.thenCombine(CompletableFuture.completedFuture(trace.timed(PipelineStage.RATE_FOR, rateFor).get()),
+											 trace.timed(PipelineStage.CONVERT, convert))
+								.join();
+	}
+
+	@Benchmark
+	public BigDecimal pipeline_timed() {
+		return CompletableFuture.completedFuture(timedBestFor.get())
+								.thenCombine(CompletableFuture.completedFuture(timedRateFor.get()), timedConvert)
+								.join();
+	}
+}
@@ -0,0 +1,145 @@
+package com.mspark.newjava.java9.optional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * OptionalImprovements 의 Java8 방식과 Java9 방식을 데이터 크기별로 비교한다.
+ * 이름 중 hitPercent 퍼센트가 조회되도록 lookUpName() 을 구성한다.
+ * NameIndex 로 조회하는 경우와, 요소마다 Optional 을 만들지 않는 일괄 조회도 함께 측정한다.
+ * Bloom filter 는 대부분이 없는 이름인 경우를 위한 것이므로 hitPercent=1 에서 효과를 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OptionalImprovementsBenchmark {
+
+	@Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	@Param({"50", "1"})
+	public int hitPercent;
+
+	private List<String> names;
+	private Set<String> knownNames;
+	private NameIndex nameIndex;
+	private NameIndex bloomFilteredNameIndex;
+
+	@Setup
+	public void setUp() {
+		names = IntStream.range(0, size).mapToObj(Integer::toString).collect(Collectors.toList());
+		knownNames = new HashSet<>();
+		for (int i = 0; i < size; i++) {
+			if (i % 100 < hitPercent) {
+				knownNames.add(Integer.toString(i));
+			}
+		}
+		nameIndex = NameIndex.of(knownNames);
+		bloomFilteredNameIndex = nameIndex.withBloomFilter(10);
+	}
+
+	@Benchmark
+	public List<String> optionalStream_in_java8_way() {
+		return names.stream()
+					.map(this::lookUpName)
+					.filter(Optional::isPresent)
+					.map(Optional::get)
+					.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> optionalStream_in_java9_way() {
+		return names.stream()
+					.map(this::lookUpName)
+					.flatMap(Optional::stream)
+					.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> optionalStream_by_nameIndex() {
+		return names.stream()
+					.map(nameIndex::lookUp)
+					.flatMap(Optional::stream)
+					.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> hits_by_nameIndex() {
+		return nameIndex.hits(names);
+	}
+
+	@Benchmark
+	public List<String> hits_by_bloomFilteredNameIndex() {
+		return bloomFilteredNameIndex.hits(names);
+	}
+
+	@Benchmark
+	public void ifPresent_in_java8_way(Blackhole blackhole) {
+		for (String name : names) {
+			Optional<String> lookedUpName = lookUpName(name);
+			if (lookedUpName.isPresent()) {
+				blackhole.consume(lookedUpName.get());
+			} else {
+				blackhole.consume(name);
+			}
+		}
+	}
+
+	@Benchmark
+	public void ifPresentOrElse_in_java9_way(Blackhole blackhole) {
+		for (String name : names) {
+			lookUpName(name).ifPresentOrElse(blackhole::consume, () -> blackhole.consume(name));
+		}
+	}
+
+	@Benchmark
+	public void orElseGet_in_java8_way(Blackhole blackhole) {
+		for (String name : names) {
+			String lookedUpName = lookUpName(name).orElseGet(() -> lookUpName2(name));
+			if (lookedUpName != null) {
+				blackhole.consume(lookedUpName);
+			}
+		}
+	}
+
+	@Benchmark
+	public void or_in_java9_way(Blackhole blackhole) {
+		for (String name : names) {
+			lookUpName(name).or(() -> lookUpName3(name))
+							.ifPresent(blackhole::consume);
+		}
+	}
+
+	private Optional<String> lookUpName(String name) {
+		return knownNames.contains(name) ? Optional.of(name) : Optional.empty();
+	}
+
+	private String lookUpName2(String name) {
+		return null;
+	}
+
+	private Optional<String> lookUpName3(String name) {
+		return Optional.empty();
+	}
+}
@@ -0,0 +1,69 @@
+package com.mspark.newjava.java9.stream;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ofNullableImprove 의 설정 조회를 여러 스레드에서 동시에 실행한다.
+ * app.config, app.home 은 설정되지 않았고 user.home 만 있으므로 매번 세 키를 모두 조회하게 된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(16)
+public class ConfigurationResolverBenchmark {
+
+	private ConfigurationResolver configuration;
+	private ConfigurationResolver.Chain configurationDirectory;
+
+	@Setup
+	public void setUp() {
+		configuration = ConfigurationResolver.system();
+		configurationDirectory = configuration.chain("app.config", "app.home", "user.home");
+	}
+
+	@Benchmark
+	public String getProperty_in_java8_way() {
+		return Stream.of("app.config", "app.home", "user.home")
+					 .flatMap(key -> {
+						 final String property = System.getProperty(key);
+						 return property == null ? Stream.empty() : Stream.of(property);
+					 })
+					 .findFirst()
+					 .orElseThrow(IllegalStateException::new);
+	}
+
+	@Benchmark
+	public String getProperty_in_java9_way() {
+		return Stream.of("app.config", "app.home", "user.home")
+					 .flatMap(key -> Stream.ofNullable(System.getProperty(key)))
+					 .findFirst()
+					 .orElseThrow(IllegalStateException::new);
+	}
+
+	@Benchmark
+	public String snapshot() {
+		return configuration.get(configurationDirectory);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public boolean refresh_unchanged() {
+		return configuration.refresh();
+	}
+}
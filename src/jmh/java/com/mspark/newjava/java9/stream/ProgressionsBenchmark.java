@@ -0,0 +1,108 @@
+package com.mspark.newjava.java9.stream;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * size 보다 작은 3의 배수의 합을 iterate(), range() + filter(), Progressions 로 구하여 순차/병렬로 비교한다.
+ * batchStarts 는 size 개의 레코드를 1000 건씩 나눈 배치 오프셋을 병렬로 처리하는 경우이다.
+ * doubles 는 0.1 간격 수열의 합을 iterate() 와 비교하며, setUp 에서 끝값(미포함)을 넘는 요소가 없는지 확인한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProgressionsBenchmark {
+
+	@Param({"1000", "100000", "10000000"})
+	public int size;
+
+	@Setup
+	public void setUp() {
+		checkDoublesBound(9.5, 17.6, 0.1, 81);
+		checkDoublesBound(0, size / 10.0, 0.1, size);
+		checkDoublesBound(-9.5, -17.6, -0.1, 81);
+	}
+
+	private static void checkDoublesBound(double start, double endExclusive, double step, long expectedCount) {
+		double[] values = Progressions.doubles(start, endExclusive, step).toArray();
+		double last = values.length == 0 ? start : values[values.length - 1];
+		if (values.length != expectedCount || (step > 0 ? last >= endExclusive : last <= endExclusive)) {
+			throw new IllegalStateException("doubles(" + start + ", " + endExclusive + ", " + step + ") has "
+					+ values.length + " elements ending at " + last + ", expected " + expectedCount);
+		}
+	}
+
+	@Benchmark
+	public long iterate_in_java9_way() {
+		return IntStream.iterate(3, x -> x < size, x -> x + 3).asLongStream().sum();
+	}
+
+	@Benchmark
+	public long range_filter_in_java8_way() {
+		return IntStream.range(3, size).filter(x -> x % 3 == 0).asLongStream().sum();
+	}
+
+	@Benchmark
+	public long progression() {
+		return Progressions.ints(3, size, 3).asLongStream().sum();
+	}
+
+	@Benchmark
+	public long iterate_parallel() {
+		return IntStream.iterate(3, x -> x < size, x -> x + 3).parallel().asLongStream().sum();
+	}
+
+	@Benchmark
+	public long range_filter_parallel() {
+		return IntStream.range(3, size).parallel().filter(x -> x % 3 == 0).asLongStream().sum();
+	}
+
+	@Benchmark
+	public long progression_parallel() {
+		return Progressions.ints(3, size, 3).parallel().asLongStream().sum();
+	}
+
+	@Benchmark
+	public double doubles_by_iterate() {
+		double end = size / 10.0;
+		return DoubleStream.iterate(0, x -> x < end, x -> x + 0.1).sum();
+	}
+
+	@Benchmark
+	public double doubles_by_progression() {
+		return Progressions.doubles(0, size / 10.0, 0.1).sum();
+	}
+
+	@Benchmark
+	public long batchStarts_by_iterate() {
+		return LongStream.iterate(0, offset -> offset < size, offset -> offset + 1000)
+						 .parallel()
+						 .map(offset -> Math.min(offset + 1000, size) - offset)
+						 .sum();
+	}
+
+	@Benchmark
+	public long batchStarts_by_progression() {
+		return Progressions.batchStarts(0, size, 1000)
+						   .parallel()
+						   .map(offset -> Math.min(offset + 1000, size) - offset)
+						   .sum();
+	}
+}
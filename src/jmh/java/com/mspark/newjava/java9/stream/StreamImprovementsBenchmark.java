@@ -0,0 +1,102 @@
+package com.mspark.newjava.java9.stream;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StreamImprovements 의 Java8 방식과 Java9 방식을 데이터 크기별로 비교한다.
+ *
+ * ofNullable: System.getProperty() 대신 절반만 값이 있는 Map 을 조회하여 flatMap 부분만 측정한다.
+ * dropWhile: 정렬된 리스트에서 중간값 이상을 고른다.
+ * iterate: size 보다 작은 3의 배수를 더한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StreamImprovementsBenchmark {
+
+	@Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	private List<String> keys;
+	private Map<String, String> properties;
+	private List<Integer> sortedNumbers;
+
+	@Setup
+	public void setUp() {
+		keys = IntStream.range(0, size).mapToObj(i -> "key." + i).collect(Collectors.toList());
+		properties = new HashMap<>();
+		for (int i = 0; i < size; i += 2) {
+			properties.put("key." + i, "value." + i);
+		}
+		sortedNumbers = IntStream.range(0, size).boxed().collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> ofNullable_in_java8_way() {
+		return keys.stream()
+				   .flatMap(key -> {
+					   final String property = properties.get(key);
+					   return property == null ? Stream.empty() : Stream.of(property);
+				   })
+				   .collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> ofNullable_in_java9_way() {
+		return keys.stream()
+				   .flatMap(key -> Stream.ofNullable(properties.get(key)))
+				   .collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<Integer> filter_in_java8_way() {
+		int threshold = size / 2;
+		return sortedNumbers.stream()
+							.filter(number -> number >= threshold)
+							.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<Integer> dropWhile_in_java9_way() {
+		int threshold = size / 2;
+		return sortedNumbers.stream()
+							.dropWhile(number -> number < threshold)
+							.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public long rangeFilter_in_java8_way() {
+		return IntStream.range(3, size)
+						.filter(num -> num % 3 == 0)
+						.asLongStream()
+						.sum();
+	}
+
+	@Benchmark
+	public long iterate_in_java9_way() {
+		return IntStream.iterate(3, x -> x < size, x -> x + 3)
+						.asLongStream()
+						.sum();
+	}
+}
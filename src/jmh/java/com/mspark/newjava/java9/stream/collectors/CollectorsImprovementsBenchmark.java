@@ -0,0 +1,98 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import static java.util.stream.Collectors.filtering;
+import static java.util.stream.Collectors.flatMapping;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CollectorsImprovements 의 Java8 방식과 Java9 방식을 데이터 크기별로 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CollectorsImprovementsBenchmark {
+
+	@Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	private List<Expense> expenses;
+
+	@Setup
+	public void setUp() {
+		expenses = randomExpenses(size, 42);
+	}
+
+	@Benchmark
+	public Map<Integer, List<Expense>> listByYearMore1000_in_java8_way() {
+		return expenses.stream()
+					   .filter(expense -> expense.getAmount() > 1_000)
+					   .collect(groupingBy(Expense::getYear));
+	}
+
+	@Benchmark
+	public Map<Integer, List<Expense>> listByYearMore1000_in_java9_way() {
+		return expenses.stream()
+					   .collect(groupingBy(Expense::getYear,
+							   filtering(expense -> expense.getAmount() > 1_000, toList())));
+	}
+
+	@Benchmark
+	public Map<Integer, Set<List<Tag>>> tagsByYear_in_java8_way() {
+		return expenses.stream()
+					   .collect(groupingBy(Expense::getYear,
+							   mapping(Expense::getTags, toSet())));
+	}
+
+	@Benchmark
+	public Map<Integer, Set<Tag>> tagsByYear_in_java9_way() {
+		return expenses.stream()
+					   .collect(groupingBy(Expense::getYear,
+							   flatMapping(expense -> expense.getTags().stream(), toSet())));
+	}
+
+	/**
+	 * 2000 ~ 2019 년, 0 ~ 1999 금액, 0 ~ 2개의 태그를 가지는 Expense 목록
+	 */
+	static List<Expense> randomExpenses(int size, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		Tag[] tags = Tag.values();
+		List<Expense> expenses = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			int tagCount = random.nextInt(3);
+			List<Tag> expenseTags = new ArrayList<>(tagCount);
+			for (int t = 0; t < tagCount; t++) {
+				Tag tag = tags[random.nextInt(tags.length)];
+				if (!expenseTags.contains(tag)) {
+					expenseTags.add(tag);
+				}
+			}
+			expenses.add(new Expense(random.nextInt(2_000), 2000 + random.nextInt(20), expenseTags));
+		}
+		return expenses;
+	}
+}
@@ -0,0 +1,98 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import static java.util.stream.Collectors.filtering;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.summingLong;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 병렬 연도별 그룹핑을 parallelism 별 ForkJoinPool 에서 실행하여 코어 수에 따른 확장성을 비교한다.
+ * parallelism 은 -p parallelism=1,2,4,8,16 과 같이 장비의 코어 수에 맞게 지정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParallelGroupingBenchmark {
+
+	@Param({"1", "2", "4", "8"})
+	public int parallelism;
+
+	@Param({"1000000", "10000000"})
+	public int size;
+
+	private List<Expense> expenses;
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setUp() {
+		expenses = CollectorsImprovementsBenchmark.randomExpenses(size, 42);
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public Map<Integer, List<Expense>> listByYearMore1000_groupingBy() {
+		return pool.submit(() -> expenses.parallelStream()
+										 .collect(groupingBy(Expense::getYear,
+												 filtering(expense -> expense.getAmount() > 1_000, toList()))))
+				   .join();
+	}
+
+	@Benchmark
+	public Map<Integer, List<Expense>> listByYearMore1000_groupingByInt() {
+		return pool.submit(() -> expenses.parallelStream()
+										 .collect(IntGroupingCollectors.groupingByInt(Expense::getYear,
+												 filtering(expense -> expense.getAmount() > 1_000, toList()))))
+				   .join();
+	}
+
+	@Benchmark
+	public Map<Integer, Long> sumByYearMore1000_groupingBy() {
+		return pool.submit(() -> expenses.parallelStream()
+										 .filter(expense -> expense.getAmount() > 1_000)
+										 .collect(groupingBy(Expense::getYear, summingLong(Expense::getAmount))))
+				   .join();
+	}
+
+	@Benchmark
+	public Map<Integer, Long> sumByYearMore1000_groupingByInt() {
+		return pool.submit(() -> expenses.parallelStream()
+										 .filter(expense -> expense.getAmount() > 1_000)
+										 .collect(IntGroupingCollectors.groupingByInt(Expense::getYear, summingLong(Expense::getAmount))))
+				   .join();
+	}
+
+	@Benchmark
+	public YearTotals sumByYearMore1000_concurrentLongAdder() {
+		return pool.submit(() -> expenses.parallelStream()
+										 .unordered()
+										 .filter(expense -> expense.getAmount() > 1_000)
+										 .collect(IntGroupingCollectors.sumAndCountByYear(Expense::getYear, Expense::getAmount)))
+				   .join();
+	}
+}
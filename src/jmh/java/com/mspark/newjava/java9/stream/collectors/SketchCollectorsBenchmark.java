@@ -0,0 +1,125 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SketchCollectors.quantiles() 를 병렬로 수집한 스케치와, 전체를 정렬하여 구한 정확한 분위수를 비교한다.
+ *
+ * setUp 에서 분포마다 0 ~ 100 백분위와 p99.9 의 상대 오차가 relativeAccuracy 이내인지 확인하고, 넘으면 예외를 던져 실행을 멈춘다.
+ * 분포는 로그정규, 균등, 지수, 파레토(꼬리가 긴 분포), 두 봉우리, 0 과 음수를 포함한 정규분포이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SketchCollectorsBenchmark {
+	private static final double[] CHECKED_QUANTILES = checkedQuantiles();
+
+	@Param({"logNormal", "uniform", "exponential", "pareto", "bimodal", "signed"})
+	public String distribution;
+
+	@Param({"100000", "1000000"})
+	public int size;
+
+	private List<Double> values;
+
+	@Setup
+	public void setUp() {
+		double[] samples = samples(distribution, size, 42);
+		values = Arrays.stream(samples).boxed().collect(Collectors.toList());
+		checkRelativeError(values.parallelStream().collect(SketchCollectors.quantiles(Double::doubleValue)), samples);
+	}
+
+	@Benchmark
+	public QuantileSketch quantiles_sketch_parallel() {
+		return values.parallelStream().collect(SketchCollectors.quantiles(Double::doubleValue));
+	}
+
+	@Benchmark
+	public double[] quantiles_sorted() {
+		double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+		double[] quantiles = new double[CHECKED_QUANTILES.length];
+		for (int i = 0; i < quantiles.length; i++) {
+			quantiles[i] = sorted[(int) (CHECKED_QUANTILES[i] * (sorted.length - 1))];
+		}
+		return quantiles;
+	}
+
+	/**
+	 * QuantileSketch 가 보장하는 |quantile(q) - x_q| <= relativeAccuracy * |x_q| 를 확인한다.
+	 */
+	private void checkRelativeError(QuantileSketch sketch, double[] samples) {
+		double[] sorted = samples.clone();
+		Arrays.sort(sorted);
+		for (double q : CHECKED_QUANTILES) {
+			double exact = sorted[(int) (q * (sorted.length - 1))];
+			double estimate = sketch.quantile(q);
+			double error = exact == 0 ? Math.abs(estimate) : Math.abs(estimate - exact) / Math.abs(exact);
+			if (error > sketch.relativeAccuracy() * (1 + 1e-9)) {
+				throw new IllegalStateException(distribution + ": relative error " + error + " exceeds "
+						+ sketch.relativeAccuracy() + " at q=" + q + " (exact " + exact + ", sketch " + estimate + ")");
+			}
+		}
+	}
+
+	private static double[] checkedQuantiles() {
+		double[] quantiles = new double[102];
+		for (int percent = 0; percent <= 100; percent++) {
+			quantiles[percent] = percent / 100.0;
+		}
+		quantiles[101] = 0.999;
+		return quantiles;
+	}
+
+	static double[] samples(String distribution, int size, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		double[] samples = new double[size];
+		for (int i = 0; i < size; i++) {
+			samples[i] = sample(distribution, random);
+		}
+		return samples;
+	}
+
+	private static double sample(String distribution, SplittableRandom random) {
+		switch (distribution) {
+			case "logNormal":
+				return Math.exp(gaussian(random) * 1.5 + 7);
+			case "uniform":
+				return 1 + random.nextDouble() * 10_000;
+			case "exponential":
+				return -Math.log(1 - random.nextDouble()) * 100;
+			case "pareto":
+				return 10 / Math.pow(1 - random.nextDouble(), 1 / 1.2);
+			case "bimodal":
+				return random.nextInt(20) == 0 ? 750 + random.nextDouble() * 250 : Math.exp(gaussian(random) * 0.4 + Math.log(40));
+			case "signed":
+				return random.nextInt(10) == 0 ? 0 : Math.rint(gaussian(random) * 1_000);
+			default:
+				throw new IllegalArgumentException("Unknown distribution: " + distribution);
+		}
+	}
+
+	private static double gaussian(SplittableRandom random) {
+		double u = 1 - random.nextDouble();
+		double v = random.nextDouble();
+		return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+	}
+}
@@ -0,0 +1,72 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.flatMapping;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 연도별 태그 집계를 flatMapping(..., toSet()) 경로와 TagCollectors 로 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TagCollectorsBenchmark {
+
+	@Param({"1000", "100000", "10000000"})
+	public int size;
+
+	private List<Expense> expenses;
+
+	@Setup
+	public void setUp() {
+		expenses = CollectorsImprovementsBenchmark.randomExpenses(size, 42);
+	}
+
+	@Benchmark
+	public Map<Integer, Set<Tag>> tagUnionByYear_flatMapping() {
+		return expenses.stream()
+					   .collect(groupingBy(Expense::getYear,
+							   flatMapping(expense -> expense.getTags().stream(), toSet())));
+	}
+
+	@Benchmark
+	public Map<Integer, Set<Tag>> tagUnionByYear_tagCollectors() {
+		return expenses.stream()
+					   .collect(TagCollectors.tagUnionByYear());
+	}
+
+	@Benchmark
+	public Map<Integer, Map<Tag, Long>> tagCountsByYear_flatMapping() {
+		return expenses.stream()
+					   .collect(groupingBy(Expense::getYear,
+							   flatMapping(expense -> expense.getTags().stream(), groupingBy(Function.identity(), counting()))));
+	}
+
+	@Benchmark
+	public YearTagCounts tagCountsByYear_tagCollectors() {
+		return expenses.stream()
+					   .collect(TagCollectors.tagCountsByYear());
+	}
+}
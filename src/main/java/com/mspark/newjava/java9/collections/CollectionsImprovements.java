@@ -75,6 +75,17 @@ public class CollectionsImprovements {
 			System.out.println(e);
 		}
 		
+		/**
+		 * Set.of, Map.of 는 원소의 타입과 관계없이 같은 구조를 사용한다.
+		 * 한번 만들고 계속 조회하는 테이블이라면 내용에 맞는 구조를 골라 더 작고 빠르게 만들 수 있다.
+		 * (문자열은 해시를 미리 계산하고, 숫자는 boxing 없는 비트맵이나 primitive 해시 테이블, enum 키는 ordinal 배열)
+		 */
+		Set<String> frozenSet = FrozenCollections.freeze(setJava9);
+		FrozenIntSet frozenIds = FrozenCollections.ints(1, 2, 3, 5, 8, 13, 21);
+		Map<String, Integer> frozenMap = FrozenCollections.freeze(mapJava9);
 		
+		System.out.println(frozenSet.contains("AAA") + " " + frozenIds.contains(13) + " " + frozenMap.get("KEY"));
+		System.out.println(((FrozenCollection) frozenSet).layout() + " " + ((FrozenCollection) frozenSet).footprintBytes() + " bytes, "
+						   + frozenIds.layout() + " " + frozenIds.footprintBytes() + " bytes");
 	}
 }
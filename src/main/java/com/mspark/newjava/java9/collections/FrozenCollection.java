@@ -0,0 +1,32 @@
+package com.mspark.newjava.java9.collections;
+
+/**
+ * FrozenCollections 가 만드는 불변 컬렉션의 공통 정보.
+ */
+interface FrozenCollection {
+
+	int size();
+
+	/**
+	 * 선택된 내부 구조의 이름 (예: "bitmap", "hash", "perfect-hash")
+	 */
+	String layout();
+
+	/**
+	 * 컬렉션 객체와 내부 배열이 차지하는 대략적인 바이트 수.
+	 * compressed oops 가 켜진 64 비트 JVM 기준이며, 키와 값으로 들어있는 객체 자체는 포함하지 않는다.
+	 */
+	long footprintBytes();
+
+	static long objectBytes(int fieldBytes) {
+		return align(12 + fieldBytes);
+	}
+
+	static long arrayBytes(int length, int elementBytes) {
+		return align(16 + (long) length * elementBytes);
+	}
+
+	static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+}
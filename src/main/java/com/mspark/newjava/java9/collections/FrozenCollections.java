@@ -0,0 +1,110 @@
+package com.mspark.newjava.java9.collections;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 읽기 위주의 조회 테이블을 위한 불변 컬렉션을 내용에 맞는 구조로 만든다.
+ *
+ * Set.of, Map.of 는 어떤 타입이든 같은 구조(Object 배열의 linear probing)를 사용하므로 equals()/hashCode() 호출과 boxing 이 필요하다.
+ * freeze() 는 원소와 키의 타입을 보고 다음 중 하나를 고른다.
+ * - enum 키 Map: ordinal 인덱스 배열 (FrozenEnumMap)
+ * - String Set: 해시를 미리 계산한 테이블, 원소가 적으면 perfect hashing (FrozenStringSet)
+ * - Integer/Long Set: 범위가 좁으면 비트맵, 아니면 primitive 해시 테이블 (FrozenIntSet, FrozenLongSet)
+ * - Integer/Long 키 Map: 범위가 좁으면 값 배열, 아니면 primitive 키 해시 테이블 (FrozenIntMap, FrozenLongMap)
+ * 그 외에는 Set.of, Map.ofEntries 를 사용한다. 결과가 FrozenCollection 이면 layout() 과 footprintBytes() 로 선택된 구조와 크기를 알 수 있다.
+ */
+final class FrozenCollections {
+
+	private FrozenCollections() {
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static <E> Set<E> freeze(Collection<E> source) {
+		Set<E> distinct = new LinkedHashSet<>(source);
+		if (distinct.isEmpty()) {
+			return Set.of();
+		}
+		Class<?> type = commonType(distinct);
+		if (type == String.class) {
+			return (Set<E>) strings((Collection<String>) distinct);
+		}
+		if (type == Integer.class) {
+			return (Set<E>) ints(((Collection<Integer>) distinct).stream().mapToInt(Integer::intValue).toArray());
+		}
+		if (type == Long.class) {
+			return (Set<E>) longs(((Collection<Long>) distinct).stream().mapToLong(Long::longValue).toArray());
+		}
+		if (type != null && type.isEnum()) {
+			return Collections.unmodifiableSet(EnumSet.copyOf((Collection) distinct));
+		}
+		return Set.of((E[]) distinct.toArray());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static <K, V> Map<K, V> freeze(Map<K, V> source) {
+		if (source.isEmpty()) {
+			return Map.of();
+		}
+		Class<?> type = commonType(source.keySet());
+		if (type == Integer.class) {
+			return (Map<K, V>) intMap((Map<Integer, V>) source);
+		}
+		if (type == Long.class) {
+			return (Map<K, V>) longMap((Map<Long, V>) source);
+		}
+		if (type != null && type.isEnum()) {
+			return new FrozenEnumMap(type, source);
+		}
+		return Map.ofEntries(source.entrySet().stream()
+								   .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+								   .toArray(Map.Entry[]::new));
+	}
+
+	static FrozenStringSet strings(Collection<String> source) {
+		return FrozenStringSet.of(source);
+	}
+
+	static FrozenIntSet ints(int... values) {
+		return FrozenIntSet.of(values);
+	}
+
+	static FrozenLongSet longs(long... values) {
+		return FrozenLongSet.of(values);
+	}
+
+	static <K extends Enum<K>, V> FrozenEnumMap<K, V> enumMap(Class<K> keyType, Map<K, ? extends V> source) {
+		return new FrozenEnumMap<>(keyType, source);
+	}
+
+	static <V> FrozenIntMap<V> intMap(Map<Integer, ? extends V> source) {
+		return FrozenIntMap.of(source);
+	}
+
+	static <V> FrozenLongMap<V> longMap(Map<Long, ? extends V> source) {
+		return FrozenLongMap.of(source);
+	}
+
+	/**
+	 * 모든 원소가 같은 클래스이면 그 클래스 (enum 상수 몸체가 있으면 enum 클래스), 아니면 null
+	 */
+	private static Class<?> commonType(Collection<?> elements) {
+		Class<?> common = null;
+		for (Object element : elements) {
+			if (element == null) {
+				throw new NullPointerException("element");
+			}
+			Class<?> type = element instanceof Enum ? ((Enum<?>) element).getDeclaringClass() : element.getClass();
+			if (common == null) {
+				common = type;
+			} else if (common != type) {
+				return null;
+			}
+		}
+		return common;
+	}
+}
@@ -0,0 +1,103 @@
+package com.mspark.newjava.java9.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * enum 키의 ordinal 을 인덱스로 하는 배열에 값을 저장하는 불변 Map.
+ * get() 은 해시 계산이나 equals() 없이 배열 조회 한번이다. Map.of 와 같이 null 키와 null 값은 허용하지 않는다.
+ */
+final class FrozenEnumMap<K extends Enum<K>, V> extends AbstractMap<K, V> implements FrozenCollection {
+	private final Class<K> keyType;
+	private final K[] universe;
+	private final Object[] values;
+	private final int size;
+
+	FrozenEnumMap(Class<K> keyType, Map<K, ? extends V> source) {
+		this.keyType = keyType;
+		this.universe = keyType.getEnumConstants();
+		this.values = new Object[universe.length];
+		for (Map.Entry<K, ? extends V> entry : source.entrySet()) {
+			if (entry.getValue() == null) {
+				throw new NullPointerException("value of " + entry.getKey());
+			}
+			values[entry.getKey().ordinal()] = entry.getValue();
+		}
+		this.size = source.size();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		return isKey(key) ? (V) values[((Enum<?>) key).ordinal()] : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return isKey(key) && values[((Enum<?>) key).ordinal()] != null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String layout() {
+		return "ordinal-array";
+	}
+
+	@Override
+	public long footprintBytes() {
+		return FrozenCollection.objectBytes(4 * 4) + FrozenCollection.arrayBytes(values.length, 4);
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new AbstractSet<Map.Entry<K, V>>() {
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator() {
+				return new Iterator<Map.Entry<K, V>>() {
+					private int next = advance(0);
+
+					@Override
+					public boolean hasNext() {
+						return next < values.length;
+					}
+
+					@Override
+					@SuppressWarnings("unchecked")
+					public Map.Entry<K, V> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						Map.Entry<K, V> entry = new SimpleImmutableEntry<>(universe[next], (V) values[next]);
+						next = advance(next + 1);
+						return entry;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private int advance(int from) {
+		int index = from;
+		while (index < values.length && values[index] == null) {
+			index++;
+		}
+		return index;
+	}
+
+	private boolean isKey(Object key) {
+		return key != null && (key.getClass() == keyType || key.getClass().getSuperclass() == keyType);
+	}
+}
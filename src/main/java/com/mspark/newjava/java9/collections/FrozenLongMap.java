@@ -0,0 +1,167 @@
+package com.mspark.newjava.java9.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * boxing 없이 long 키로 조회하는 불변 Map.
+ *
+ * 키의 범위(max - min + 1)가 키 수의 4 배 이하이면 (키 - min) 을 인덱스로 하는 값 배열을,
+ * 아니면 키 배열과 값 배열로 된 적재율 0.5 이하의 linear probing 테이블을 사용한다.
+ * Map.of 와 같이 null 값은 허용하지 않으며, 값이 null 인 슬롯을 빈 슬롯으로 사용한다.
+ */
+final class FrozenLongMap<V> extends AbstractMap<Long, V> implements FrozenCollection {
+	private static final long DENSE_RANGE_PER_KEY = 4;
+
+	private final long min;
+	private final long[] keys;
+	private final Object[] values;
+	private final boolean dense;
+	private final int shift;
+	private final int mask;
+	private final int size;
+
+	private FrozenLongMap(long min, long[] keys, Object[] values, boolean dense, int size) {
+		this.min = min;
+		this.keys = keys;
+		this.values = values;
+		this.dense = dense;
+		this.shift = dense ? 0 : Integer.SIZE - Integer.numberOfTrailingZeros(values.length);
+		this.mask = values.length - 1;
+		this.size = size;
+	}
+
+	static <V> FrozenLongMap<V> of(Map<Long, ? extends V> source) {
+		long[] sortedKeys = source.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+		for (Map.Entry<Long, ? extends V> entry : source.entrySet()) {
+			if (entry.getValue() == null) {
+				throw new NullPointerException("value of " + entry.getKey());
+			}
+		}
+		if (sortedKeys.length == 0) {
+			return new FrozenLongMap<>(0, null, new Object[0], true, 0);
+		}
+
+		long min = sortedKeys[0];
+		// 범위가 long 을 넘어 음수가 되는 경우도 해시 테이블을 사용한다.
+		long range = sortedKeys[sortedKeys.length - 1] - min + 1;
+		if (range > 0 && range <= DENSE_RANGE_PER_KEY * sortedKeys.length) {
+			Object[] values = new Object[(int) range];
+			for (long key : sortedKeys) {
+				values[(int) (key - min)] = source.get(key);
+			}
+			return new FrozenLongMap<>(min, null, values, true, sortedKeys.length);
+		}
+
+		int capacity = Integer.highestOneBit(Math.max(2, sortedKeys.length * 2) - 1) << 1;
+		int shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+		long[] keys = new long[capacity];
+		Object[] values = new Object[capacity];
+		for (long key : sortedKeys) {
+			int slot = slot(key, shift);
+			while (values[slot] != null) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			keys[slot] = key;
+			values[slot] = source.get(key);
+		}
+		return new FrozenLongMap<>(min, keys, values, false, sortedKeys.length);
+	}
+
+	/**
+	 * @return 없으면 null
+	 */
+	@SuppressWarnings("unchecked")
+	V get(long key) {
+		if (dense) {
+			long index = key - min;
+			return index >= 0 && index < values.length ? (V) values[(int) index] : null;
+		}
+		for (int slot = slot(key, shift); values[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return (V) values[slot];
+			}
+		}
+		return null;
+	}
+
+	boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public V get(Object key) {
+		return key instanceof Long ? get(((Long) key).longValue()) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof Long && containsKey(((Long) key).longValue());
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String layout() {
+		return dense ? "dense-array" : "hash";
+	}
+
+	@Override
+	public long footprintBytes() {
+		long bytes = FrozenCollection.objectBytes(8 + 4 * 2 + 1 + 4 * 3) + FrozenCollection.arrayBytes(values.length, 4);
+		return keys == null ? bytes : bytes + FrozenCollection.arrayBytes(keys.length, 8);
+	}
+
+	@Override
+	public Set<Map.Entry<Long, V>> entrySet() {
+		return new AbstractSet<Map.Entry<Long, V>>() {
+			@Override
+			public Iterator<Map.Entry<Long, V>> iterator() {
+				return new Iterator<Map.Entry<Long, V>>() {
+					private int next = advance(0);
+
+					@Override
+					public boolean hasNext() {
+						return next < values.length;
+					}
+
+					@Override
+					@SuppressWarnings("unchecked")
+					public Map.Entry<Long, V> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						long key = dense ? min + next : keys[next];
+						Map.Entry<Long, V> entry = new SimpleImmutableEntry<>(key, (V) values[next]);
+						next = advance(next + 1);
+						return entry;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private static int slot(long key, int shift) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> (shift + Integer.SIZE));
+	}
+
+	private int advance(int from) {
+		int index = from;
+		while (index < values.length && values[index] == null) {
+			index++;
+		}
+		return index;
+	}
+}
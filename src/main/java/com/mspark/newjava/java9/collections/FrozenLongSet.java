@@ -0,0 +1,148 @@
+package com.mspark.newjava.java9.collections;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * boxing 없이 long 을 조회하는 불변 Set.
+ *
+ * 값의 범위(max - min + 1)가 원소 수의 64 배 이하이면 비트맵을, 아니면 적재율 0.5 이하의 linear probing 테이블을 사용한다.
+ * 비트맵은 원소당 최대 8 바이트, 해시 테이블은 원소당 16 ~ 32 바이트를 사용하므로 더 작은 쪽을 고르는 기준이다.
+ * 해시 테이블의 빈 슬롯은 Set 에 없는 값 하나(empty)로 표시한다.
+ */
+final class FrozenLongSet extends AbstractSet<Long> implements FrozenCollection {
+	private static final long BITMAP_RANGE_PER_ELEMENT = 64;
+
+	private final long[] sorted;
+	private final long min;
+	private final long[] bits;
+	private final long[] table;
+	private final long empty;
+	private final int shift;
+	private final int mask;
+
+	private FrozenLongSet(long[] sorted, long[] bits, long[] table, long empty) {
+		this.sorted = sorted;
+		this.min = sorted.length == 0 ? 0 : sorted[0];
+		this.bits = bits;
+		this.table = table;
+		this.empty = empty;
+		this.shift = table == null ? 0 : Integer.SIZE - Integer.numberOfTrailingZeros(table.length);
+		this.mask = table == null ? 0 : table.length - 1;
+	}
+
+	static FrozenLongSet of(long... values) {
+		long[] sorted = Arrays.stream(values).sorted().distinct().toArray();
+		if (sorted.length == 0) {
+			return new FrozenLongSet(sorted, new long[0], null, 0);
+		}
+		// 범위가 long 을 넘어 음수가 되는 경우도 해시 테이블을 사용한다.
+		long range = sorted[sorted.length - 1] - sorted[0] + 1;
+		if (range > 0 && range <= BITMAP_RANGE_PER_ELEMENT * sorted.length) {
+			long[] bits = new long[(int) ((range + 63) >>> 6)];
+			for (long value : sorted) {
+				int offset = (int) (value - sorted[0]);
+				bits[offset >>> 6] |= 1L << offset;
+			}
+			return new FrozenLongSet(sorted, bits, null, 0);
+		}
+
+		long empty = unusedValue(sorted);
+		int capacity = Integer.highestOneBit(Math.max(2, sorted.length * 2) - 1) << 1;
+		int shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+		long[] table = new long[capacity];
+		Arrays.fill(table, empty);
+		for (long value : sorted) {
+			int slot = slot(value, shift);
+			while (table[slot] != empty) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			table[slot] = value;
+		}
+		return new FrozenLongSet(sorted, null, table, empty);
+	}
+
+	boolean contains(long value) {
+		if (bits != null) {
+			long offset = value - min;
+			return offset >= 0 && offset < (long) bits.length << 6 && (bits[(int) (offset >>> 6)] & (1L << offset)) != 0;
+		}
+		if (value == empty) {
+			return false;
+		}
+		for (int slot = slot(value, shift); table[slot] != empty; slot = (slot + 1) & mask) {
+			if (table[slot] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean contains(Object value) {
+		return value instanceof Long && contains(((Long) value).longValue());
+	}
+
+	@Override
+	public int size() {
+		return sorted.length;
+	}
+
+	@Override
+	public String layout() {
+		return bits != null ? "bitmap" : "hash";
+	}
+
+	/**
+	 * 순회에 사용하는 정렬된 배열도 포함한다.
+	 */
+	@Override
+	public long footprintBytes() {
+		long bytes = FrozenCollection.objectBytes(4 * 3 + 8 * 2 + 4 * 2) + FrozenCollection.arrayBytes(sorted.length, 8);
+		return bytes + (bits != null ? FrozenCollection.arrayBytes(bits.length, 8) : FrozenCollection.arrayBytes(table.length, 8));
+	}
+
+	/**
+	 * 오름차순으로 순회한다.
+	 */
+	@Override
+	public Iterator<Long> iterator() {
+		return new Iterator<Long>() {
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next < sorted.length;
+			}
+
+			@Override
+			public Long next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return sorted[next++];
+			}
+		};
+	}
+
+	private static int slot(long value, int shift) {
+		return (int) ((value * 0x9E3779B97F4A7C15L) >>> (shift + Integer.SIZE));
+	}
+
+	/**
+	 * 정렬된 값들 사이에서 Set 에 없는 값을 찾는다.
+	 */
+	private static long unusedValue(long[] sorted) {
+		if (sorted[0] != Long.MIN_VALUE) {
+			return sorted[0] - 1;
+		}
+		for (int i = 1; i < sorted.length; i++) {
+			if (sorted[i] != sorted[i - 1] + 1) {
+				return sorted[i - 1] + 1;
+			}
+		}
+		return sorted[sorted.length - 1] + 1;
+	}
+}
@@ -0,0 +1,174 @@
+package com.mspark.newjava.java9.collections;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 문자열 해시를 미리 계산하여 저장한 불변 Set.
+ *
+ * 슬롯은 String.hashCode() 에 곱셈 해시를 적용한 상위 비트로 정한다. 저장된 해시가 같은 슬롯에서만 equals() 를 호출한다.
+ * 원소가 PERFECT_HASH_MAX_SIZE 개 이하이면 충돌이 없는 곱셈 상수를 찾아(perfect hashing) contains() 가 슬롯 하나만 확인하도록 만든다.
+ * 찾지 못했거나 원소가 많으면 적재율 0.5 이하의 linear probing 을 사용한다.
+ */
+final class FrozenStringSet extends AbstractSet<String> implements FrozenCollection {
+	static final int PERFECT_HASH_MAX_SIZE = 32;
+	private static final int PERFECT_HASH_ATTEMPTS = 256;
+	private static final int DEFAULT_MULTIPLIER = 0x9E3779B9;
+
+	private final String[] table;
+	private final int[] hashes;
+	private final int multiplier;
+	private final int shift;
+	private final int mask;
+	private final boolean perfect;
+	private final int size;
+
+	private FrozenStringSet(String[] table, int[] hashes, int multiplier, boolean perfect, int size) {
+		this.table = table;
+		this.hashes = hashes;
+		this.multiplier = multiplier;
+		this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(table.length);
+		this.mask = table.length - 1;
+		this.perfect = perfect;
+		this.size = size;
+	}
+
+	static FrozenStringSet of(Collection<String> source) {
+		String[] elements = new LinkedHashSet<>(source).toArray(new String[0]);
+		for (String element : elements) {
+			if (element == null) {
+				throw new NullPointerException("element");
+			}
+		}
+
+		if (elements.length <= PERFECT_HASH_MAX_SIZE) {
+			int capacity = tableSize(elements.length, 4);
+			int multiplier = DEFAULT_MULTIPLIER;
+			for (int attempt = 0; attempt < PERFECT_HASH_ATTEMPTS; attempt++) {
+				FrozenStringSet set = tryPerfect(elements, capacity, multiplier);
+				if (set != null) {
+					return set;
+				}
+				multiplier = nextMultiplier(multiplier);
+			}
+		}
+		return probing(elements, tableSize(elements.length, 2));
+	}
+
+	@Override
+	public boolean contains(Object element) {
+		if (!(element instanceof String)) {
+			return false;
+		}
+		int hash = element.hashCode();
+		int slot = (hash * multiplier) >>> shift;
+		if (perfect) {
+			return hashes[slot] == hash && element.equals(table[slot]);
+		}
+		for (String candidate = table[slot & mask]; candidate != null; candidate = table[slot & mask]) {
+			if (hashes[slot & mask] == hash && element.equals(candidate)) {
+				return true;
+			}
+			slot++;
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String layout() {
+		return perfect ? "perfect-hash" : "hash";
+	}
+
+	@Override
+	public long footprintBytes() {
+		return FrozenCollection.objectBytes(4 * 2 + 4 * 5) + FrozenCollection.arrayBytes(table.length, 4)
+				+ FrozenCollection.arrayBytes(hashes.length, 4);
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int next = advance(0);
+
+			@Override
+			public boolean hasNext() {
+				return next < table.length;
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				String element = table[next];
+				next = advance(next + 1);
+				return element;
+			}
+		};
+	}
+
+	private int advance(int from) {
+		int index = from;
+		while (index < table.length && table[index] == null) {
+			index++;
+		}
+		return index;
+	}
+
+	private static FrozenStringSet tryPerfect(String[] elements, int capacity, int multiplier) {
+		int shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+		String[] table = new String[capacity];
+		int[] hashes = new int[capacity];
+		for (String element : elements) {
+			int hash = element.hashCode();
+			int slot = (hash * multiplier) >>> shift;
+			if (table[slot] != null) {
+				return null;
+			}
+			table[slot] = element;
+			hashes[slot] = hash;
+		}
+		return new FrozenStringSet(table, hashes, multiplier, true, elements.length);
+	}
+
+	private static FrozenStringSet probing(String[] elements, int capacity) {
+		int shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+		String[] table = new String[capacity];
+		int[] hashes = new int[capacity];
+		for (String element : elements) {
+			int hash = element.hashCode();
+			int slot = (hash * DEFAULT_MULTIPLIER) >>> shift;
+			while (table[slot] != null) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			table[slot] = element;
+			hashes[slot] = hash;
+		}
+		return new FrozenStringSet(table, hashes, DEFAULT_MULTIPLIER, false, elements.length);
+	}
+
+	/**
+	 * size * factor 이상인 2의 거듭제곱. shift 가 32 가 되지 않도록 최소 2 이다.
+	 */
+	private static int tableSize(int size, int factor) {
+		long wanted = Math.max(2L, (long) size * factor);
+		if (wanted > 1 << 30) {
+			throw new IllegalArgumentException("Too many elements: " + size);
+		}
+		return Integer.highestOneBit((int) wanted - 1) << 1;
+	}
+
+	private static int nextMultiplier(int multiplier) {
+		int next = multiplier * 0x2C1B3C6D + 0x297A2D39;
+		return (next ^ (next >>> 15)) | 1;
+	}
+}
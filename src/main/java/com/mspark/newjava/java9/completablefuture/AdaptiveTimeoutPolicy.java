@@ -0,0 +1,50 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.time.Duration;
+
+/**
+ * 노선별로 관측한 지연시간 분포로부터 타임아웃을 정한다.
+ *
+ * timeout = clamp(percentile 지연시간 + margin, minTimeout, maxTimeout)
+ * 샘플이 minSamples 보다 적은 동안에는 initialTimeout 을 사용한다.
+ */
+class AdaptiveTimeoutPolicy {
+	private final double percentile;
+	private final long marginNanos;
+	private final long initialTimeoutNanos;
+	private final long minTimeoutNanos;
+	private final long maxTimeoutNanos;
+	private final int minSamples;
+
+	AdaptiveTimeoutPolicy(double percentile, Duration margin, Duration initialTimeout,
+						  Duration minTimeout, Duration maxTimeout, int minSamples) {
+		if (percentile <= 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be in (0, 100]: " + percentile);
+		}
+		if (minTimeout.compareTo(maxTimeout) > 0) {
+			throw new IllegalArgumentException("minTimeout > maxTimeout");
+		}
+		this.percentile = percentile;
+		this.marginNanos = margin.toNanos();
+		this.initialTimeoutNanos = initialTimeout.toNanos();
+		this.minTimeoutNanos = minTimeout.toNanos();
+		this.maxTimeoutNanos = maxTimeout.toNanos();
+		this.minSamples = minSamples;
+	}
+
+	/**
+	 * p99 + 50ms, 첫 20개 요청은 1초, 200ms ~ 2초 사이로 제한
+	 */
+	static AdaptiveTimeoutPolicy defaults() {
+		return new AdaptiveTimeoutPolicy(99, Duration.ofMillis(50), Duration.ofSeconds(1),
+										 Duration.ofMillis(200), Duration.ofSeconds(2), 20);
+	}
+
+	long timeoutNanos(LatencyTracker latencies) {
+		if (latencies.sampleCount() < minSamples) {
+			return initialTimeoutNanos;
+		}
+		long timeout = latencies.percentile(percentile) + marginNanos;
+		return Math.max(minTimeoutNanos, Math.min(maxTimeoutNanos, timeout));
+	}
+}
@@ -0,0 +1,133 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 통화별 환율을 TTL 동안 캐시하는 ExchangeService.
+ *
+ * 캐시는 Currency.ordinal() 을 인덱스로 하는 배열이다.
+ * 조회 시점에 캐시된 값의 나이가 (ttl - refreshAhead) 를 넘었다면 캐시된 값을 바로 돌려주고 백그라운드에서 갱신을 시작한다.
+ * 갱신이 끝나기 전에 ttl 이 지나버린 경우에만 호출자가 갱신을 기다리게 되며,
+ * 갱신이 실패하거나 refreshTimeout 안에 끝나지 않으면 마지막으로 알고 있던 환율을 돌려준다.
+ * 같은 통화에 대한 갱신은 SingleFlight 로 합쳐지므로 동시에 여러번 실행되지 않는다.
+ */
+class CachingExchangeService extends ExchangeService {
+	private final long ttlNanos;
+	private final long refreshAfterNanos;
+	private final long refreshTimeoutNanos;
+	private final AtomicReferenceArray<CachedRate> rates = new AtomicReferenceArray<>(Currency.values().length);
+	private final SingleFlight<Currency, BigDecimal> refreshes = new SingleFlight<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder staleServed = new LongAdder();
+	private final LongAdder refreshFailures = new LongAdder();
+
+	CachingExchangeService(Duration ttl, Duration refreshAhead, Duration refreshTimeout) {
+		this(ttl, refreshAhead, refreshTimeout, Delay.DEFAULT_LATENCY);
+	}
+
+	/**
+	 * 캐시를 거치지 않는 실제 조회의 지연시간을 latency 로 정한다.
+	 */
+	CachingExchangeService(Duration ttl, Duration refreshAhead, Duration refreshTimeout, LatencyModel latency) {
+		super(latency);
+		if (ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("ttl must be positive: " + ttl);
+		}
+		if (refreshAhead.isNegative() || refreshAhead.compareTo(ttl) >= 0) {
+			throw new IllegalArgumentException("refreshAhead must be between zero and ttl: " + refreshAhead);
+		}
+		this.ttlNanos = ttl.toNanos();
+		this.refreshAfterNanos = ttl.minus(refreshAhead).toNanos();
+		this.refreshTimeoutNanos = refreshTimeout.toNanos();
+	}
+
+	@Override
+	BigDecimal rateFor(Currency currency) {
+		return rateForAsync(currency).join();
+	}
+
+	@Override
+	CompletableFuture<BigDecimal> rateForAsync(Currency currency) {
+		CachedRate cached = rates.get(currency.ordinal());
+		if (cached == null) {
+			misses.increment();
+			return refresh(currency);
+		}
+
+		long age = System.nanoTime() - cached.loadedAt;
+		if (age < refreshAfterNanos) {
+			hits.increment();
+			return CompletableFuture.completedFuture(cached.rate);
+		}
+
+		CompletableFuture<BigDecimal> refresh = refresh(currency);
+		if (age < ttlNanos) {
+			hits.increment();
+			return CompletableFuture.completedFuture(cached.rate);
+		}
+
+		misses.increment();
+		return refresh.handle((rate, error) -> {
+			if (error == null) {
+				return rate;
+			}
+			staleServed.increment();
+			return rates.get(currency.ordinal()).rate;
+		});
+	}
+
+	private CompletableFuture<BigDecimal> refresh(Currency currency) {
+		return refreshes.execute(currency, key ->
+				super.rateForAsync(key)
+					 .orTimeout(refreshTimeoutNanos, TimeUnit.NANOSECONDS)
+					 .whenComplete((rate, error) -> {
+						 if (error == null) {
+							 rates.set(key.ordinal(), new CachedRate(rate, System.nanoTime()));
+						 } else {
+							 refreshFailures.increment();
+						 }
+					 }));
+	}
+
+	long hits() {
+		return hits.sum();
+	}
+
+	long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * 갱신 실패 또는 시간 초과로 마지막으로 알고 있던 환율을 돌려준 횟수
+	 */
+	long staleServed() {
+		return staleServed.sum();
+	}
+
+	long refreshFailures() {
+		return refreshFailures.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + hits() + ", misses=" + misses() + ", staleServed=" + staleServed()
+				+ ", refreshFailures=" + refreshFailures() + ", refreshes={" + refreshes + "}";
+	}
+
+	private static final class CachedRate {
+		private final BigDecimal rate;
+		private final long loadedAt;
+
+		private CachedRate(BigDecimal rate, long loadedAt) {
+			this.rate = rate;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.time.Duration;
+
+/**
+ * 연속된 실패가 failureThreshold 에 도달하면 openDuration 동안 백엔드 호출을 막는다.
+ * openDuration 이 지나면 하나의 시험 요청만 통과시키고(HALF_OPEN), 그 결과에 따라 다시 닫거나 연다.
+ */
+class CircuitBreaker {
+	enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openNanos;
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAt;
+
+	CircuitBreaker(int failureThreshold, Duration openDuration) {
+		if (failureThreshold <= 0) {
+			throw new IllegalArgumentException("failureThreshold must be positive: " + failureThreshold);
+		}
+		this.failureThreshold = failureThreshold;
+		this.openNanos = openDuration.toNanos();
+	}
+
+	synchronized boolean allowRequest() {
+		switch (state) {
+			case CLOSED:
+				return true;
+			case OPEN:
+				if (System.nanoTime() - openedAt >= openNanos) {
+					state = State.HALF_OPEN;
+					return true;
+				}
+				return false;
+			default:
+				return false;
+		}
+	}
+
+	synchronized void onSuccess() {
+		consecutiveFailures = 0;
+		state = State.CLOSED;
+	}
+
+	synchronized void onFailure() {
+		consecutiveFailures++;
+		if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+			state = State.OPEN;
+			openedAt = System.nanoTime();
+		}
+	}
+
+	synchronized State state() {
+		return state;
+	}
+}
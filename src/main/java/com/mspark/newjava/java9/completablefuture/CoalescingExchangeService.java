@@ -0,0 +1,27 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 같은 통화에 대한 동시 조회를 하나의 백엔드 호출로 합치는 ExchangeService.
+ * 동기 조회와 비동기 조회가 같은 진행중 요청을 공유한다.
+ */
+class CoalescingExchangeService extends ExchangeService {
+	private final SingleFlight<Currency, BigDecimal> singleFlight = new SingleFlight<>();
+
+	@Override
+	BigDecimal rateFor(Currency currency) {
+		return singleFlight.execute(currency, key -> CompletableFuture.completedFuture(super.rateFor(key)))
+						   .join();
+	}
+
+	@Override
+	CompletableFuture<BigDecimal> rateForAsync(Currency currency) {
+		return singleFlight.execute(currency, super::rateForAsync);
+	}
+
+	SingleFlight<Currency, BigDecimal> stats() {
+		return singleFlight;
+	}
+}
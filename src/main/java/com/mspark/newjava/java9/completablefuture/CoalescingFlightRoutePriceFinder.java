@@ -0,0 +1,29 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 같은 노선에 대한 동시 조회를 하나의 백엔드 호출로 합치는 FlightRoutePriceFinder.
+ * 동기 조회와 비동기 조회가 같은 진행중 요청을 공유한다.
+ */
+class CoalescingFlightRoutePriceFinder extends FlightRoutePriceFinder {
+	private final SingleFlight<Route, BigDecimal> singleFlight = new SingleFlight<>();
+
+	@Override
+	BigDecimal bestFor(AirportCode departure, AirportCode destination) {
+		return singleFlight.execute(Route.of(departure, destination),
+									route -> CompletableFuture.completedFuture(super.bestFor(departure, destination)))
+						   .join();
+	}
+
+	@Override
+	CompletableFuture<BigDecimal> bestForAsync(AirportCode departure, AirportCode destination) {
+		return singleFlight.execute(Route.of(departure, destination),
+									route -> super.bestForAsync(departure, destination));
+	}
+
+	SingleFlight<Route, BigDecimal> stats() {
+		return singleFlight;
+	}
+}
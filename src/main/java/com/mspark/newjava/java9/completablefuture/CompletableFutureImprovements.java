@@ -2,18 +2,19 @@ package com.mspark.newjava.java9.completablefuture;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Random;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
+import javax.management.JMException;
+
 public class CompletableFutureImprovements {
-	private static ScheduledExecutorService delayer = Executors.newScheduledThreadPool(1);
+	private static HashedWheelTimer timer = HashedWheelTimer.shared();
 
 	public static void main(String[] args) throws InterruptedException, ExecutionException, TimeoutException {
 		
@@ -47,10 +48,12 @@ public class CompletableFutureImprovements {
 		 * 
 		 */
 
-	    CompletableFuture.supplyAsync(() -> flightRoutePriceFinder.bestFor(AirportCode.LCY, AirportCode.JFK))
-	    				 .thenCombine(CompletableFuture.supplyAsync(() -> exchangeService.rateFor(Currency.GBP)),
-	    						 	  CompletableFutureImprovements::convert)
-	    				 .acceptEither(timeoutAfter(1, TimeUnit.SECONDS), amount -> System.out.printf("The price is %s %s", amount, Currency.GBP));
+	    CompletableFuture<BigDecimal> quote =
+	    		CompletableFuture.supplyAsync(() -> flightRoutePriceFinder.bestFor(AirportCode.LCY, AirportCode.JFK))
+	    						 .thenCombine(CompletableFuture.supplyAsync(() -> exchangeService.rateFor(Currency.GBP)),
+	    								 	  CompletableFutureImprovements::convert);
+	    CompletableFuture<Void> first =
+	    		quote.acceptEither(timeoutAfter(quote, 1, TimeUnit.SECONDS), amount -> System.out.printf("The price is %s %s", amount, Currency.GBP));
 		
 	    System.out.println("Is it first call??? then It's Noblocking call!!!");
 	    
@@ -59,6 +62,7 @@ public class CompletableFutureImprovements {
 	     * orTimeout()은 수행시간 초과시 새로운 CompletableFuture를 리턴하는데 이는 개발자로 하여금 파이프라인 체이닝을 가능하게 해준다.
 	     * whenComplete() 메서드는 Timeout 예외 보다 이전에 다른 예외가 발생한다면 그 예외를 보고한다.
 	     */
+	    CompletableFuture<BigDecimal> second =
 	    CompletableFuture.supplyAsync(() -> flightRoutePriceFinder.bestFor(AirportCode.LCY, AirportCode.JFK))
 						 .thenCombine(CompletableFuture.supplyAsync(() -> exchangeService.rateFor(Currency.GBP)),
 								 	  CompletableFutureImprovements::convert)
@@ -76,38 +80,197 @@ public class CompletableFutureImprovements {
 	     * completeOnTimeout() 메서드는 수행시간 초과 시 주어진 디폴트 값을 반환하고 파이프 라인을 종료한다.
 	     */
 	    BigDecimal DEFAULT_VALUE = new BigDecimal(100);
+	    CompletableFuture<Void> third =
 	    CompletableFuture.supplyAsync(() -> flightRoutePriceFinder.bestFor(AirportCode.LCY, AirportCode.JFK))
 						 .thenCombine(CompletableFuture.supplyAsync(() -> exchangeService.rateFor(Currency.GBP)),
 								 	  CompletableFutureImprovements::convert)
 						 .completeOnTimeout(DEFAULT_VALUE, 1, TimeUnit.SECONDS)
 						 .thenAccept(amount ->System.out.printf("The price is %s %s", amount, Currency.GBP));
 	    
-		
+	    /**
+	     * 위의 예제들은 각 서비스 내부에서 Thread.sleep() 으로 지연시간을 흉내내기 때문에 지연시간 동안 common pool 의 스레드를 점유한다.
+	     * 동시 요청이 common pool 의 스레드 수를 넘어서면 나머지 요청은 스레드가 반환될 때 까지 대기하게 된다.
+	     * 
+	     * Java9 에서 추가된 CompletableFuture.delayedExecutor() 를 이용한 bestForAsync(), rateForAsync() 는
+	     * 지연시간 동안 스레드를 점유하지 않으므로 적은 수의 스레드로도 수천개의 요청을 동시에 대기시킬 수 있다.
+	     */
+	    CompletableFuture<BigDecimal> fourth =
+	    flightRoutePriceFinder.bestForAsync(AirportCode.LCY, AirportCode.JFK)
+	    					  .thenCombine(exchangeService.rateForAsync(Currency.GBP),
+	    							  	   CompletableFutureImprovements::convert)
+	    					  .orTimeout(1, TimeUnit.SECONDS)
+	    					  .whenComplete((amount, error) ->{
+	    						  if (error == null) {
+	    							  System.out.printf("The price is %s %s", amount, Currency.GBP);
+	    						  } else {
+	    							  System.out.println("Sorry, something unexpected happened: " + error);
+	    						  }
+	    					  });
+	    
+	    /**
+	     * 같은 노선, 같은 통화에 대한 요청이 동시에 몰리는 경우 각 요청이 백엔드를 따로 호출할 필요는 없다.
+	     * Coalescing 서비스는 진행중인 요청의 CompletableFuture 를 공유하여 백엔드 호출을 한번으로 합친다.
+	     */
+	    CoalescingFlightRoutePriceFinder coalescingFinder = new CoalescingFlightRoutePriceFinder();
+	    CoalescingExchangeService coalescingExchange = new CoalescingExchangeService();
+	    CompletableFuture<?>[] burst = new CompletableFuture<?>[100];
+	    for (int i = 0; i < burst.length; i++) {
+	    	burst[i] = coalescingFinder.bestForAsync(AirportCode.LCY, AirportCode.JFK)
+	    							   .thenCombine(coalescingExchange.rateForAsync(Currency.GBP),
+	    									   		CompletableFutureImprovements::convert);
+	    }
+	    CompletableFuture<Void> fifth =
+	    CompletableFuture.allOf(burst)
+	    				 .thenRun(() -> System.out.printf("%nbestFor: %s%nrateFor: %s%n", coalescingFinder.stats(), coalescingExchange.stats()));
+	    
+	    /**
+	     * 고정된 타임아웃과 DEFAULT_VALUE 는 모든 노선에 맞지 않는다.
+	     * ResilientQuoteService 는 노선별로 관측한 p99 지연시간에 여유를 더해 타임아웃을 정하고,
+	     * 타임아웃시 그 노선의 마지막 성공 가격을 stale 로 표시하여 돌려준다.
+	     */
+	    ResilientQuoteService resilientQuoteService =
+	    		new ResilientQuoteService(flightRoutePriceFinder, exchangeService, AdaptiveTimeoutPolicy.defaults(),
+	    								  timer, 5, Duration.ofSeconds(10));
+	    CompletableFuture<Quote> sixth =
+	    resilientQuoteService.quote(AirportCode.LCY, AirportCode.JFK, Currency.GBP)
+	    					 .whenComplete((resilientQuote, error) -> {
+	    						 if (error == null) {
+	    							 System.out.println("The quote is " + resilientQuote);
+	    						 } else {
+	    							 System.out.println("Sorry, something unexpected happened: " + error);
+	    						 }
+	    					 });
+	    
+	    /**
+	     * Java9 에서 추가된 Flow API 는 Reactive Streams 의 Publisher, Subscriber, Subscription 인터페이스를 제공한다.
+	     * 구독자는 request(n) 으로 처리할 수 있는 만큼만 요청하고, QuotePublisher 는 요청받은 만큼만 가격을 조회하여 발행한다.
+	     * 아래의 구독자는 한번에 하나씩 요청하여 3개의 가격을 받은 후 구독을 취소한다.
+	     */
+	    CompletableFuture<Void> seventh = new CompletableFuture<>();
+	    new QuotePublisher(flightRoutePriceFinder, exchangeService,
+	    				   List.of(Route.of(AirportCode.LCY, AirportCode.JFK), Route.of(AirportCode.JFK, AirportCode.LCY)), Currency.GBP, 16)
+	    	.subscribe(new Flow.Subscriber<Quote>() {
+	    		private Flow.Subscription subscription;
+	    		private int received;
+	    		
+	    		@Override
+	    		public void onSubscribe(Flow.Subscription subscription) {
+	    			this.subscription = subscription;
+	    			subscription.request(1);
+	    		}
+	    		
+	    		@Override
+	    		public void onNext(Quote streamedQuote) {
+	    			System.out.println("Streamed quote " + streamedQuote);
+	    			if (++received == 3) {
+	    				subscription.cancel();
+	    				seventh.complete(null);
+	    			} else {
+	    				subscription.request(1);
+	    			}
+	    		}
+	    		
+	    		@Override
+	    		public void onError(Throwable throwable) {
+	    			seventh.completeExceptionally(throwable);
+	    		}
+	    		
+	    		@Override
+	    		public void onComplete() {
+	    			seventh.complete(null);
+	    		}
+	    	});
+	    
+	    /**
+	     * 파이프라인의 어느 단계에서 시간이 걸리는지 보려면 단계별로 지연시간을 기록해야 한다.
+	     * PipelineMetrics 는 bestFor, rateFor, convert, 타임아웃 구간의 지연시간을 lock 없는 히스토그램에 기록하고
+	     * 타임아웃과 completeOnTimeout() 의 대체값 사용 건수를 센다. 결과는 snapshot() 이나 JMX 로 볼 수 있다.
+	     */
+	    PipelineMetrics pipelineMetrics = new PipelineMetrics();
+	    try {
+	    	pipelineMetrics.register("quote");
+	    } catch (JMException exception) {
+	    	System.out.println("JMX registration failed: " + exception);
+	    }
+	    InstrumentedQuotePipeline instrumentedPipeline =
+	    		new InstrumentedQuotePipeline(flightRoutePriceFinder, exchangeService, ExecutionStrategy.COMMON_POOL.newExecutor(), timer, pipelineMetrics);
+	    CompletableFuture<Void> eighth =
+	    instrumentedPipeline.quoteOrDefault(AirportCode.LCY, AirportCode.JFK, Currency.GBP, DEFAULT_VALUE, 1, TimeUnit.SECONDS)
+	    					.thenAccept(amount -> System.out.printf("The price is %s %s%n%s%n", amount, Currency.GBP, pipelineMetrics.snapshot()));
+	    
+	    /**
+	     * 비동기 스레드와 타이머 스레드는 모두 데몬 스레드이므로 모든 예제가 끝날 때 까지 기다린 후 종료한다.
+	     */
+	    CompletableFuture.allOf(first, second, third, fourth, fifth, sixth, seventh, eighth)
+	    				 .handle((result, error) -> null)
+	    				 .join();
 	}
 	
-    private static <T> CompletableFuture<T> timeoutAfter(long timeout, TimeUnit unit) {
-    	CompletableFuture<T> future = new CompletableFuture<T>();
-        delayer.schedule(() -> future.completeExceptionally(new TimeoutException()), timeout, unit);
-        return future;
+	/**
+	 * guarded 가 먼저 완료되면 타임아웃은 Timing Wheel 에서 바로 취소되므로, 부하가 높아도 죽은 타임아웃이 쌓이지 않는다.
+	 * orTimeout(), completeOnTimeout() 과 같은 형태의 헬퍼는 HashedWheelTimer 에 있다.
+	 */
+    private static <T> CompletableFuture<T> timeoutAfter(CompletableFuture<?> guarded, long timeout, TimeUnit unit) {
+        return timer.timeoutAfter(guarded, timeout, unit);
+    }
+
+    /**
+     * double 을 거치지 않고 Money 의 고정소수점 연산으로 환산한다.
+     * 호출할 때마다 환율을 정규화하므로, 같은 환율로 여러 금액을 환산한다면 ExchangeRate 를 받는 convert() 를 사용한다.
+     */
+    static BigDecimal convert(BigDecimal price, BigDecimal rate) {
+        return convert(price, ExchangeRate.of(rate));
     }
 
-    private static BigDecimal convert(BigDecimal price, BigDecimal rate) {
-        return Utils.decimal(price.multiply(rate));
+    /**
+     * 미리 정규화해 둔 환율로 환산하므로 결과 BigDecimal 외에는 할당하지 않는다.
+     */
+    static BigDecimal convert(BigDecimal price, ExchangeRate rate) {
+        long minorUnits = Money.minorUnitsOf(price, Utils.SCALE);
+        return BigDecimal.valueOf(Money.multiplyMinorUnits(minorUnits, rate.units(), rate.scale()), Utils.SCALE);
     }
 }
 
 
 class FlightRoutePriceFinder {
+    private final LatencyModel latency;
+    private final SplitMix64 random;
+
+    FlightRoutePriceFinder() {
+        this(Delay.DEFAULT_LATENCY, SplitMix64.unseeded());
+    }
+
+    /**
+     * 지연시간과 가격을 seed 로 재현할 수 있는 FlightRoutePriceFinder
+     */
+    FlightRoutePriceFinder(LatencyModel latency, long seed) {
+        this(latency, new SplitMix64(seed));
+    }
+
+    private FlightRoutePriceFinder(LatencyModel latency, SplitMix64 random) {
+        this.latency = latency;
+        this.random = random;
+    }
+
     BigDecimal bestFor(AirportCode departure, AirportCode destination) {
         return bestPriceWithDelay(departure, destination);
     }
 
+    /**
+     * bestFor() 의 non-blocking 버전. 지연시간 동안 스레드를 점유하지 않는다.
+     */
+    CompletableFuture<BigDecimal> bestForAsync(AirportCode departure, AirportCode destination) {
+        return new Delay<BigDecimal>(latency).randomAsync(() -> bestPrice(departure, destination));
+    }
+
     private BigDecimal bestPriceWithDelay(AirportCode departure, AirportCode destination) {
-        return new Delay<BigDecimal>().random()
-            .then(() -> {
-                double price = 10 * Utils.randomChar(departure.getName()) + Utils.randomChar(destination.getName());
-                return Utils.decimal(price);
-            });
+        return new Delay<BigDecimal>(latency).random()
+            .then(() -> bestPrice(departure, destination));
+    }
+
+    private BigDecimal bestPrice(AirportCode departure, AirportCode destination) {
+        double price = 10 * Utils.randomChar(departure.getName(), random) + Utils.randomChar(destination.getName(), random);
+        return Utils.decimal(price);
     }
 }
 
@@ -129,31 +292,61 @@ enum Currency {
     USD(1.0), GBP(0.769375);
 
     public final BigDecimal rate;
+    final ExchangeRate exchangeRate;
 
     Currency(Double rate) {
         this.rate = new BigDecimal(rate.toString());
+        this.exchangeRate = ExchangeRate.of(this.rate);
     }
 }
 
 class ExchangeService {
+    private final LatencyModel latency;
+
+    ExchangeService() {
+        this(Delay.DEFAULT_LATENCY);
+    }
+
+    ExchangeService(LatencyModel latency) {
+        this.latency = latency;
+    }
+
     BigDecimal rateFor(Currency currency) {
         return rateWithDelayFor(currency);
     }
 
+    /**
+     * rateFor() 의 non-blocking 버전. 지연시간 동안 스레드를 점유하지 않는다.
+     */
+    CompletableFuture<BigDecimal> rateForAsync(Currency currency) {
+        return new Delay<BigDecimal>(latency).randomAsync(() -> currency.rate);
+    }
+
     private BigDecimal rateWithDelayFor(Currency currency) {
-        return new Delay<BigDecimal>().random()
+        return new Delay<BigDecimal>(latency).random()
             .then(() -> currency.rate);
     }
 }
 
+/**
+ * LatencyModel 이 정한 시간만큼 지연시킨다. 모델을 지정하지 않으면 750 ~ 1000ms 균등분포를 사용한다.
+ */
 class Delay<T> {
-    private static final int MIN_DELAY_IN_MS = 750;
-    private static final int MAX_DELAY_IN_MS = 1000;
+    static final LatencyModel DEFAULT_LATENCY = LatencyModel.defaults();
+
+    private final LatencyModel latency;
+
+    Delay() {
+        this(DEFAULT_LATENCY);
+    }
+
+    Delay(LatencyModel latency) {
+        this.latency = latency;
+    }
 
     Delay<T> random() {
-        int delayInMs = ThreadLocalRandom.current().nextInt(MIN_DELAY_IN_MS, MAX_DELAY_IN_MS);
         try {
-            Thread.sleep(delayInMs);
+            TimeUnit.NANOSECONDS.sleep(latency.nextDelayNanos());
         } catch (InterruptedException exception) {
             throw new RuntimeException(exception);
         }
@@ -163,14 +356,24 @@ class Delay<T> {
     T then(Supplier<T> supplier) {
         return supplier.get();
     }
+
+    /**
+     * Thread.sleep() 대신 CompletableFuture.delayedExecutor() 를 이용하여 지연시킨다.
+     * 대기중인 요청은 JDK 가 공유하는 단일 스케줄러 스레드의 큐에만 존재하고,
+     * 지연시간이 지난 후에야 supplier 가 common pool 에서 실행된다.
+     * 따라서 수천개의 요청이 동시에 대기하더라도 common pool 의 스레드를 점유하지 않는다.
+     */
+    CompletableFuture<T> randomAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier,
+                CompletableFuture.delayedExecutor(latency.nextDelayNanos(), TimeUnit.NANOSECONDS));
+    }
 }
 
 class Utils {
-    private static final int SCALE = 2;
+    static final int SCALE = 2;
 
-    static char randomChar(String value) {
-        int randomInt = new Random().nextInt(value.length());
-        return value.charAt(randomInt);
+    static char randomChar(String value, SplitMix64 random) {
+        return value.charAt(random.nextInt(value.length()));
     }
 
     static BigDecimal decimal(double value) {
@@ -0,0 +1,52 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+
+/**
+ * 환율과, Money.multiplyMinorUnits() 에 바로 넘길 수 있도록 정규화한 정수 부분(units)과 scale.
+ *
+ * BigDecimal 환율로 convert() 를 호출하면 매번 stripTrailingZeros() 와 unscaledValue() 로 정규화해야 한다.
+ * 같은 환율로 여러 금액을 환산하는 경우 ExchangeRate 를 한번 만들어 넘기면 정규화를 반복하지 않는다.
+ * Currency 는 자신의 환율에 대한 ExchangeRate 를 미리 만들어 둔다.
+ */
+final class ExchangeRate {
+	private final BigDecimal rate;
+	private final long units;
+	private final int scale;
+
+	private ExchangeRate(BigDecimal rate, long units, int scale) {
+		this.rate = rate;
+		this.units = units;
+		this.scale = scale;
+	}
+
+	/**
+	 * @throws ArithmeticException 정규화한 환율의 정수 부분이 long 범위를 넘는 경우
+	 * @throws IllegalArgumentException 정규화한 환율의 scale 을 Money 가 지원하지 않는 경우
+	 */
+	static ExchangeRate of(BigDecimal rate) {
+		BigDecimal normalized = rate.stripTrailingZeros();
+		if (normalized.scale() < 0) {
+			normalized = normalized.setScale(0);
+		}
+		Money.checkScale(normalized.scale());
+		return new ExchangeRate(rate, normalized.unscaledValue().longValueExact(), normalized.scale());
+	}
+
+	BigDecimal rate() {
+		return rate;
+	}
+
+	long units() {
+		return units;
+	}
+
+	int scale() {
+		return scale;
+	}
+
+	@Override
+	public String toString() {
+		return rate.toPlainString();
+	}
+}
@@ -0,0 +1,72 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 가격 조회 파이프라인의 비동기 작업을 실행할 Executor 전략.
+ *
+ * COMMON_POOL 은 supplyAsync() 의 기본값과 같다. common pool 의 shutdown() 은 아무런 효과가 없으므로
+ * 모든 전략이 반환하는 ExecutorService 는 사용 후 shutdown() 을 호출해도 안전하다.
+ */
+enum ExecutionStrategy {
+	COMMON_POOL {
+		@Override
+		ExecutorService newExecutor() {
+			return ForkJoinPool.commonPool();
+		}
+	},
+
+	/**
+	 * 크기가 quote.pool.size 시스템 프로퍼티(기본 256)로 제한된 플랫폼 스레드 풀.
+	 */
+	BOUNDED_PLATFORM_POOL {
+		@Override
+		ExecutorService newExecutor() {
+			return Executors.newFixedThreadPool(Integer.getInteger("quote.pool.size", 256));
+		}
+	},
+
+	/**
+	 * 작업마다 가상 스레드를 생성한다. 가상 스레드는 Thread.sleep() 동안 캐리어 스레드를 반환하므로
+	 * 블로킹 Delay 를 그대로 두고도 수만개의 요청을 동시에 대기시킬 수 있다.
+	 * Executors.newVirtualThreadPerTaskExecutor() 는 Java 21 부터 제공되므로 리플렉션으로 찾는다.
+	 */
+	VIRTUAL_THREAD_PER_TASK {
+		@Override
+		boolean isSupported() {
+			return VIRTUAL_THREAD_FACTORY_METHOD != null;
+		}
+
+		@Override
+		ExecutorService newExecutor() {
+			if (!isSupported()) {
+				throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+			}
+			try {
+				return (ExecutorService) VIRTUAL_THREAD_FACTORY_METHOD.invoke(null);
+			} catch (IllegalAccessException | InvocationTargetException exception) {
+				throw new IllegalStateException(exception);
+			}
+		}
+	};
+
+	private static final Method VIRTUAL_THREAD_FACTORY_METHOD = virtualThreadFactoryMethod();
+
+	abstract ExecutorService newExecutor();
+
+	boolean isSupported() {
+		return true;
+	}
+
+	private static Method virtualThreadFactoryMethod() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException exception) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 타임아웃 전용 Hashed Timing Wheel.
+ *
+ * ScheduledExecutorService 는 힙 기반의 DelayQueue 를 사용하므로 등록과 취소가 O(log n) 이고,
+ * 취소된 작업도 만료 시점까지 큐에 남는다. 이 타이머는 tickDuration 간격으로 도는 원형 버킷 배열에
+ * 이중 연결 리스트로 타임아웃을 매달아 두므로 등록과 취소가 O(1) 이다.
+ *
+ * 등록과 취소는 lock-free 큐에 넣기만 하고, 실제 버킷 연결/해제는 단일 워커 스레드가 매 tick 마다 처리한다.
+ * 취소된 타임아웃은 다음 tick 에 버킷에서 제거되므로, 대부분의 요청이 타임아웃 전에 끝나는 환경에서는
+ * 살아있는 타임아웃 수 만큼의 메모리만 사용한다. maxPendingTimeouts 를 넘는 등록은 거부된다.
+ *
+ * 타임아웃의 정밀도는 tickDuration 이며, 만료된 작업은 워커 스레드에서 실행되므로 가벼워야 한다.
+ *
+ * orTimeout(), completeOnTimeout(), timeoutAfter() 가 타임아웃으로 future 를 완료시키면, 그 future 에 걸린
+ * thenApply() 같은 비동기가 아닌 후속 단계도 워커 스레드에서 실행된다. 후속 단계가 느리면 그동안 다른 모든 타임아웃이 밀리므로,
+ * 무거운 후속 단계는 thenApplyAsync(fn, executor) 처럼 Executor 를 지정하여 워커 스레드에서 벗어나야 한다.
+ * 완료를 항상 다른 Executor 로 넘기지 않는 것은, 블로킹 작업으로 가득 찬 pool 에 넘기면 타임아웃 자체가 늦어지기 때문이다.
+ */
+class HashedWheelTimer {
+	private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+	private static final long SHARED_MAX_PENDING_TIMEOUTS = 1_000_000;
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final long maxPendingTimeouts;
+	private final long startTime = System.nanoTime();
+	private final AtomicLong pendingTimeouts = new AtomicLong();
+	private final Queue<Timeout> registrations = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancellations = new ConcurrentLinkedQueue<>();
+	private final Thread worker;
+	private volatile boolean running = true;
+	private long tick;
+
+	HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel, long maxPendingTimeouts) {
+		if (tickDuration <= 0) {
+			throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+		}
+		if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+			throw new IllegalArgumentException("ticksPerWheel out of range: " + ticksPerWheel);
+		}
+		this.tickNanos = unit.toNanos(tickDuration);
+		this.wheel = new Bucket[ticksPerWheel == 1 ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = new Bucket();
+		}
+		this.mask = wheel.length - 1;
+		this.maxPendingTimeouts = maxPendingTimeouts;
+		this.worker = new Thread(this::run, name);
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	/**
+	 * 10ms 간격, 512칸 짜리 공유 타이머. 한바퀴가 약 5초이며 그보다 긴 타임아웃은 여러 바퀴를 돈다.
+	 * 대기중인 타임아웃은 SHARED_MAX_PENDING_TIMEOUTS (100만, 타임아웃 하나에 약 100바이트) 개 까지이며, 넘으면 RejectedExecutionException 을 던진다.
+	 */
+	static HashedWheelTimer shared() {
+		return SharedHolder.INSTANCE;
+	}
+
+	Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+		if (!running) {
+			throw new RejectedExecutionException("Timer has been stopped");
+		}
+		if (pendingTimeouts.incrementAndGet() > maxPendingTimeouts) {
+			pendingTimeouts.decrementAndGet();
+			throw new RejectedExecutionException("Too many pending timeouts: " + maxPendingTimeouts);
+		}
+		Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(delay) - startTime);
+		registrations.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * guarded 가 주어진 시간 안에 완료되지 않으면 TimeoutException 으로 완료되는 future 를 돌려준다.
+	 * guarded 가 먼저 완료되면 타임아웃은 취소되고, 돌려받은 future 는 완료되지 않는다.
+	 * acceptEither(), applyToEither() 와 함께 사용한다.
+	 */
+	<T> CompletableFuture<T> timeoutAfter(CompletableFuture<?> guarded, long timeout, TimeUnit unit) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		Timeout scheduled = newTimeout(() -> future.completeExceptionally(new TimeoutException()), timeout, unit);
+		guarded.whenComplete((value, error) -> scheduled.cancel());
+		return future;
+	}
+
+	/**
+	 * CompletableFuture.orTimeout() 과 같지만 이 타이머를 사용하고, future 가 먼저 완료되면 타임아웃을 취소한다.
+	 */
+	<T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+		if (!future.isDone()) {
+			Timeout scheduled = newTimeout(() -> future.completeExceptionally(new TimeoutException()), timeout, unit);
+			future.whenComplete((value, error) -> scheduled.cancel());
+		}
+		return future;
+	}
+
+	/**
+	 * CompletableFuture.completeOnTimeout() 과 같지만 이 타이머를 사용하고, future 가 먼저 완료되면 타임아웃을 취소한다.
+	 */
+	<T> CompletableFuture<T> completeOnTimeout(CompletableFuture<T> future, T value, long timeout, TimeUnit unit) {
+		if (!future.isDone()) {
+			Timeout scheduled = newTimeout(() -> future.complete(value), timeout, unit);
+			future.whenComplete((result, error) -> scheduled.cancel());
+		}
+		return future;
+	}
+
+	long pendingTimeouts() {
+		return pendingTimeouts.get();
+	}
+
+	void stop() {
+		running = false;
+		worker.interrupt();
+	}
+
+	private void run() {
+		while (running) {
+			long deadline = waitForNextTick();
+			if (deadline < 0) {
+				continue;
+			}
+			processCancellations();
+			transferRegistrations();
+			wheel[(int) (tick & mask)].expire(deadline);
+			tick++;
+		}
+	}
+
+	/**
+	 * 다음 tick 까지 대기하고 startTime 기준의 현재 시각을 돌려준다. 인터럽트된 경우 -1 을 돌려준다.
+	 */
+	private long waitForNextTick() {
+		long deadline = tickNanos * (tick + 1);
+		while (true) {
+			long currentTime = System.nanoTime() - startTime;
+			long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - currentTime + 999_999);
+			if (sleepMillis <= 0) {
+				return currentTime;
+			}
+			try {
+				Thread.sleep(sleepMillis);
+			} catch (InterruptedException exception) {
+				if (!running) {
+					return -1;
+				}
+			}
+		}
+	}
+
+	private void transferRegistrations() {
+		for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+			Timeout timeout = registrations.poll();
+			if (timeout == null) {
+				return;
+			}
+			if (timeout.state != Timeout.ST_INIT) {
+				continue;
+			}
+			long calculated = timeout.deadline / tickNanos;
+			timeout.remainingRounds = (calculated - tick) / wheel.length;
+			long ticks = Math.max(calculated, tick);
+			wheel[(int) (ticks & mask)].add(timeout);
+		}
+	}
+
+	private void processCancellations() {
+		Timeout timeout;
+		while ((timeout = cancellations.poll()) != null) {
+			timeout.remove();
+		}
+	}
+
+	private static final class SharedHolder {
+		private static final HashedWheelTimer INSTANCE =
+				new HashedWheelTimer("shared-wheel-timer", 10, TimeUnit.MILLISECONDS, 512, SHARED_MAX_PENDING_TIMEOUTS);
+	}
+
+	static final class Timeout {
+		private static final int ST_INIT = 0;
+		private static final int ST_CANCELLED = 1;
+		private static final int ST_EXPIRED = 2;
+		private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+				AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+		private final HashedWheelTimer timer;
+		private final Runnable task;
+		private final long deadline;
+		private volatile int state = ST_INIT;
+
+		// 아래 필드들은 워커 스레드만 접근한다.
+		private long remainingRounds;
+		private boolean removed;
+		private Bucket bucket;
+		private Timeout next;
+		private Timeout prev;
+
+		private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+			this.timer = timer;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		boolean cancel() {
+			if (!STATE.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+				return false;
+			}
+			timer.cancellations.add(this);
+			return true;
+		}
+
+		boolean isCancelled() {
+			return state == ST_CANCELLED;
+		}
+
+		boolean isExpired() {
+			return state == ST_EXPIRED;
+		}
+
+		/**
+		 * 버킷에서 떼어내고 대기중인 타임아웃 수를 줄인다. 취소 큐와 버킷 순회 양쪽에서 불릴 수 있으므로 한번만 반영한다.
+		 */
+		private void remove() {
+			if (removed) {
+				return;
+			}
+			removed = true;
+			if (bucket != null) {
+				bucket.unlink(this);
+			}
+			timer.pendingTimeouts.decrementAndGet();
+		}
+
+		private void expire() {
+			if (!STATE.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+				return;
+			}
+			try {
+				task.run();
+			} catch (Throwable throwable) {
+				Thread currentThread = Thread.currentThread();
+				currentThread.getUncaughtExceptionHandler().uncaughtException(currentThread, throwable);
+			}
+		}
+	}
+
+	private static final class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void expire(long deadline) {
+			Timeout timeout = head;
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.remainingRounds <= 0) {
+					timeout.remove();
+					if (timeout.deadline <= deadline) {
+						timeout.expire();
+					} else {
+						throw new IllegalStateException("timeout.deadline (" + timeout.deadline + ") > deadline (" + deadline + ")");
+					}
+				} else if (timeout.isCancelled()) {
+					timeout.remove();
+				} else {
+					timeout.remainingRounds--;
+				}
+				timeout = next;
+			}
+		}
+
+		void unlink(Timeout timeout) {
+			Timeout next = timeout.next;
+			if (timeout.prev != null) {
+				timeout.prev.next = next;
+			}
+			if (timeout.next != null) {
+				timeout.next.prev = timeout.prev;
+			}
+			if (timeout == head) {
+				if (timeout == tail) {
+					tail = null;
+					head = null;
+				} else {
+					head = next;
+				}
+			} else if (timeout == tail) {
+				tail = timeout.prev;
+			}
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+	}
+}
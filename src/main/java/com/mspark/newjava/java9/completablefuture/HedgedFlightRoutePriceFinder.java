@@ -0,0 +1,169 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 응답이 늦어지는 요청에 대해 같은 요청을 한번 더 보내고(hedge) 먼저 도착한 응답을 사용하는 FlightRoutePriceFinder.
+ *
+ * 첫 요청이 그 노선 지연시간의 hedgePercentile 백분위가 지나도록 응답하지 않으면 두번째 요청을 보낸다.
+ * 먼저 성공한 응답을 사용하며, 나머지 요청은 취소하지 않는다. 백엔드 호출은 delayedExecutor 에서 이미 진행중이므로
+ * cancel() 해도 작업이 멈추지 않고, 첫 요청의 응답 시간은 끝까지 기다려야 기록할 수 있기 때문이다.
+ * 추가 요청은 전체 요청의 maxExtraLoadPercent 를 넘지 않도록 요청마다 적립되는 예산에서 차감되며, 예산이 없으면 hedge 하지 않는다.
+ *
+ * hedge 기준이 되는 지연시간 분포에는 이기고 지는 것과 상관없이 첫 요청이 실제로 완료된 시간을 기록한다.
+ * 먼저 도착한 응답의 시간만 기록하면 느린 첫 요청이 빠지면서 분포가 낮아지고, hedge 기준이 계속 짧아져 추가 요청이 늘어난다.
+ *
+ * 노선별 샘플이 minSamples 보다 적은 동안에는 hedge 하지 않는다.
+ * Coalescing 서비스와 함께 쓰면 두번째 요청이 첫번째 요청에 합쳐지므로 의미가 없다.
+ */
+class HedgedFlightRoutePriceFinder extends FlightRoutePriceFinder {
+	private static final long TOKEN = 1_000_000;
+	private static final long MAX_BUDGET = 100 * TOKEN;
+
+	private final double hedgePercentile;
+	private final long depositPerRequest;
+	private final int minSamples;
+	private final HashedWheelTimer timer;
+	private final ConcurrentMap<Route, LatencyTracker> latencies = new ConcurrentHashMap<>();
+	private final AtomicLong budget = new AtomicLong();
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder hedges = new LongAdder();
+	private final LongAdder hedgeWins = new LongAdder();
+
+	HedgedFlightRoutePriceFinder(double hedgePercentile, double maxExtraLoadPercent, int minSamples, HashedWheelTimer timer) {
+		this(hedgePercentile, maxExtraLoadPercent, minSamples, timer, Delay.DEFAULT_LATENCY, SplitMix64.unseeded().seed());
+	}
+
+	/**
+	 * 첫 요청과 hedge 요청 모두 latency 를 따르며, 두 요청은 모델에서 서로 다른 지연시간을 받는다.
+	 */
+	HedgedFlightRoutePriceFinder(double hedgePercentile, double maxExtraLoadPercent, int minSamples, HashedWheelTimer timer,
+								 LatencyModel latency, long seed) {
+		super(latency, seed);
+		if (hedgePercentile <= 0 || hedgePercentile >= 100) {
+			throw new IllegalArgumentException("hedgePercentile must be in (0, 100): " + hedgePercentile);
+		}
+		if (maxExtraLoadPercent < 0 || maxExtraLoadPercent > 100) {
+			throw new IllegalArgumentException("maxExtraLoadPercent must be in [0, 100]: " + maxExtraLoadPercent);
+		}
+		this.hedgePercentile = hedgePercentile;
+		this.depositPerRequest = (long) (TOKEN * maxExtraLoadPercent / 100);
+		this.minSamples = minSamples;
+		this.timer = timer;
+	}
+
+	@Override
+	BigDecimal bestFor(AirportCode departure, AirportCode destination) {
+		return bestForAsync(departure, destination).join();
+	}
+
+	@Override
+	CompletableFuture<BigDecimal> bestForAsync(AirportCode departure, AirportCode destination) {
+		requests.increment();
+		deposit();
+
+		LatencyTracker tracker = latencies.computeIfAbsent(Route.of(departure, destination), route -> new LatencyTracker(1024));
+		HedgedCall call = new HedgedCall(departure, destination, tracker);
+		call.launch(false);
+
+		if (tracker.sampleCount() >= minSamples) {
+			HashedWheelTimer.Timeout hedge = timer.newTimeout(() -> {
+				if (!call.result.isDone() && withdraw()) {
+					hedges.increment();
+					call.launch(true);
+				}
+			}, tracker.percentile(hedgePercentile), TimeUnit.NANOSECONDS);
+			call.result.whenComplete((price, error) -> hedge.cancel());
+		}
+		return call.result;
+	}
+
+	long requests() {
+		return requests.sum();
+	}
+
+	/**
+	 * 추가로 보낸 백엔드 요청 수
+	 */
+	long hedges() {
+		return hedges.sum();
+	}
+
+	/**
+	 * 추가 요청이 먼저 도착하여 사용된 횟수
+	 */
+	long hedgeWins() {
+		return hedgeWins.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("requests=%d, hedges=%d (%.2f%%), hedgeWins=%d",
+				requests(), hedges(), 100.0 * hedges() / Math.max(1, requests()), hedgeWins());
+	}
+
+	private CompletableFuture<BigDecimal> backendCall(AirportCode departure, AirportCode destination) {
+		return super.bestForAsync(departure, destination);
+	}
+
+	private void deposit() {
+		long current;
+		do {
+			current = budget.get();
+			if (current >= MAX_BUDGET) {
+				return;
+			}
+		} while (!budget.compareAndSet(current, Math.min(MAX_BUDGET, current + depositPerRequest)));
+	}
+
+	private boolean withdraw() {
+		long current;
+		do {
+			current = budget.get();
+			if (current < TOKEN) {
+				return false;
+			}
+		} while (!budget.compareAndSet(current, current - TOKEN));
+		return true;
+	}
+
+	private final class HedgedCall {
+		private final AirportCode departure;
+		private final AirportCode destination;
+		private final LatencyTracker tracker;
+		private final CompletableFuture<BigDecimal> result = new CompletableFuture<>();
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		private HedgedCall(AirportCode departure, AirportCode destination, LatencyTracker tracker) {
+			this.departure = departure;
+			this.destination = destination;
+			this.tracker = tracker;
+		}
+
+		private void launch(boolean hedge) {
+			outstanding.incrementAndGet();
+			long start = System.nanoTime();
+			CompletableFuture<BigDecimal> attempt = backendCall(departure, destination);
+			attempt.whenComplete((price, error) -> {
+				if (!hedge) {
+					tracker.record(System.nanoTime() - start);
+				}
+				if (error == null) {
+					if (result.complete(price) && hedge) {
+						hedgeWins.increment();
+					}
+				} else if (outstanding.decrementAndGet() == 0) {
+					result.completeExceptionally(error);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QuotePipeline 과 같은 bestFor() + rateFor() + thenCombine(convert) 파이프라인에 타임아웃을 걸고,
+ * 각 단계의 지연시간과 타임아웃, 대체값 사용 건수를 PipelineMetrics 에 기록한다.
+ * 요청마다 PipelineMetrics.Trace 를 사용하므로 단계의 경계마다 System.nanoTime() 을 한번만 호출한다.
+ */
+class InstrumentedQuotePipeline {
+	private final FlightRoutePriceFinder flightRoutePriceFinder;
+	private final ExchangeService exchangeService;
+	private final Executor executor;
+	private final HashedWheelTimer timer;
+	private final PipelineMetrics metrics;
+
+	InstrumentedQuotePipeline(FlightRoutePriceFinder flightRoutePriceFinder, ExchangeService exchangeService,
+							  Executor executor, HashedWheelTimer timer, PipelineMetrics metrics) {
+		this.flightRoutePriceFinder = flightRoutePriceFinder;
+		this.exchangeService = exchangeService;
+		this.executor = executor;
+		this.timer = timer;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * 시간을 초과하면 TimeoutException 으로 완료된다.
+	 */
+	CompletableFuture<BigDecimal> quote(AirportCode departure, AirportCode destination, Currency currency,
+										long timeout, TimeUnit unit) {
+		PipelineMetrics.Trace trace = metrics.trace();
+		return trace.orTimeout(combine(trace, departure, destination, currency), timeout, unit, timer);
+	}
+
+	/**
+	 * 시간을 초과하면 defaultValue 로 완료된다.
+	 */
+	CompletableFuture<BigDecimal> quoteOrDefault(AirportCode departure, AirportCode destination, Currency currency,
+												 BigDecimal defaultValue, long timeout, TimeUnit unit) {
+		PipelineMetrics.Trace trace = metrics.trace();
+		return trace.completeOnTimeout(combine(trace, departure, destination, currency), defaultValue, timeout, unit, timer);
+	}
+
+	PipelineMetrics metrics() {
+		return metrics;
+	}
+
+	private CompletableFuture<BigDecimal> combine(PipelineMetrics.Trace trace,
+												  AirportCode departure, AirportCode destination, Currency currency) {
+		return CompletableFuture.supplyAsync(trace.timed(PipelineStage.BEST_FOR,
+														 () -> flightRoutePriceFinder.bestFor(departure, destination)), executor)
+								.thenCombine(CompletableFuture.supplyAsync(trace.timed(PipelineStage.RATE_FOR,
+																					   () -> exchangeService.rateFor(currency)), executor),
+											 trace.timed(PipelineStage.CONVERT, CompletableFutureImprovements::convert));
+	}
+}
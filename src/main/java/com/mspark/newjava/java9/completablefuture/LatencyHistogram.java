@@ -0,0 +1,137 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * lock 없이 기록하는 로그-선형 지연시간 히스토그램 (HdrHistogram 과 같은 방식).
+ *
+ * 값(나노초)을 2의 거듭제곱 구간으로 나누고, 각 구간을 다시 SUB_BUCKETS 개로 균등하게 나눈다.
+ * 따라서 버킷 폭은 값의 1/16 이하이고, 백분위 값의 상대 오차는 6.25% 이하이다.
+ * 기록은 AtomicLongArray 의 증가 한번과 최대값 비교뿐이며, 메모리는 값의 범위와 관계없이 약 8KB 로 일정하다.
+ */
+class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong max = new AtomicLong();
+
+	void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(index(value));
+		long currentMax = max.get();
+		while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * 기록중에도 만들 수 있다. 버킷을 차례로 읽으므로 동시에 기록된 값은 일부만 반영될 수 있다.
+	 */
+	Snapshot snapshot() {
+		long[] copy = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+		}
+		return new Snapshot(copy, max.get());
+	}
+
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long lowestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = index % SUB_BUCKETS;
+		return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	static long highestValue(int index) {
+		return index + 1 >= BUCKETS ? Long.MAX_VALUE : lowestValue(index + 1) - 1;
+	}
+
+	/**
+	 * 한 시점의 히스토그램 사본
+	 */
+	static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long max;
+
+		Snapshot(long[] counts, long max) {
+			this.counts = counts;
+			long total = 0;
+			for (long bucket : counts) {
+				total += bucket;
+			}
+			this.count = total;
+			this.max = max;
+		}
+
+		long count() {
+			return count;
+		}
+
+		long maxNanos() {
+			return max;
+		}
+
+		/**
+		 * 버킷 중간값으로 계산한 평균
+		 */
+		double meanNanos() {
+			if (count == 0) {
+				return 0;
+			}
+			double sum = 0;
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] != 0) {
+					sum += counts[i] * ((lowestValue(i) + (double) highestValue(i)) / 2);
+				}
+			}
+			return sum / count;
+		}
+
+		/**
+		 * 해당 순위가 속한 버킷의 상한. 최대값을 넘지 않는다.
+		 *
+		 * @param percentile 0 ~ 100
+		 * @return 기록이 없으면 0
+		 */
+		long percentileNanos(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(highestValue(i), max);
+				}
+			}
+			return max;
+		}
+
+		double percentileMicros(double percentile) {
+			return percentileNanos(percentile) / (double) TimeUnit.MICROSECONDS.toNanos(1);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count=%d, p50=%.1fus, p99=%.1fus, max=%.1fus", count, percentileMicros(50),
+								 percentileMicros(99), max / (double) TimeUnit.MICROSECONDS.toNanos(1));
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 가상의 서비스(FlightRoutePriceFinder, ExchangeService)가 응답하기 까지의 지연시간 모델.
+ *
+ * 모든 모델은 seed 를 받으므로 같은 seed 와 같은 호출 순서에 대해 항상 같은 지연시간을 만든다.
+ * 따라서 캐싱, hedging 같은 개선을 같은 부하에서 비교할 수 있다.
+ */
+interface LatencyModel {
+
+	long nextDelayNanos();
+
+	/**
+	 * 기존 Delay 와 같은 750 ~ 1000ms 균등분포. 실행마다 다른 seed 를 사용한다.
+	 */
+	static LatencyModel defaults() {
+		return uniform(750, 1000, SplitMix64.unseeded().seed());
+	}
+
+	/**
+	 * [minMillis, maxMillis) 균등분포
+	 */
+	static LatencyModel uniform(long minMillis, long maxMillis, long seed) {
+		if (minMillis < 0 || maxMillis <= minMillis) {
+			throw new IllegalArgumentException("Invalid range: [" + minMillis + ", " + maxMillis + ")");
+		}
+		SplitMix64 random = new SplitMix64(seed);
+		long minNanos = TimeUnit.MILLISECONDS.toNanos(minMillis);
+		long spanNanos = TimeUnit.MILLISECONDS.toNanos(maxMillis) - minNanos;
+		return () -> minNanos + (long) (random.nextDouble() * spanNanos);
+	}
+
+	/**
+	 * 중앙값이 medianMillis 이고 로그의 표준편차가 sigma 인 로그정규분포. 실제 서비스처럼 오른쪽 꼬리가 길다.
+	 */
+	static LatencyModel logNormal(double medianMillis, double sigma, long seed) {
+		if (medianMillis <= 0 || sigma < 0) {
+			throw new IllegalArgumentException("median must be positive and sigma non-negative");
+		}
+		SplitMix64 random = new SplitMix64(seed);
+		double medianNanos = TimeUnit.MILLISECONDS.toNanos(1) * medianMillis;
+		return () -> (long) (medianNanos * Math.exp(sigma * random.nextGaussian()));
+	}
+
+	/**
+	 * slowProbability 의 확률로 slow 모델을, 나머지는 fast 모델을 사용한다. (예: 캐시 적중/실패, GC 정지)
+	 */
+	static LatencyModel bimodal(LatencyModel fast, LatencyModel slow, double slowProbability, long seed) {
+		if (slowProbability < 0 || slowProbability > 1) {
+			throw new IllegalArgumentException("slowProbability must be in [0, 1]: " + slowProbability);
+		}
+		SplitMix64 random = new SplitMix64(seed);
+		return () -> random.nextDouble() < slowProbability ? slow.nextDelayNanos() : fast.nextDelayNanos();
+	}
+
+	/**
+	 * 기록된 지연시간을 순서대로 돌려주고, 끝나면 처음부터 반복한다.
+	 */
+	static LatencyModel replay(long[] delaysNanos) {
+		if (delaysNanos.length == 0) {
+			throw new IllegalArgumentException("Empty trace");
+		}
+		long[] trace = delaysNanos.clone();
+		AtomicLong next = new AtomicLong();
+		return () -> trace[(int) Long.remainderUnsigned(next.getAndIncrement(), trace.length)];
+	}
+
+	/**
+	 * 한 줄에 하나씩 밀리초(소수 가능)로 기록된 지연시간 파일을 재생한다. 빈 줄과 '#' 으로 시작하는 줄은 무시한다.
+	 */
+	static LatencyModel replay(Path trace) throws IOException {
+		return replay(readTrace(trace));
+	}
+
+	/**
+	 * replay(Path) 가 읽는 형식의 파일을 나노초 배열로 읽는다. 같은 trace 를 처음부터 여러번 재생할 때 사용한다.
+	 */
+	static long[] readTrace(Path trace) throws IOException {
+		return Files.readAllLines(trace).stream()
+					.map(String::trim)
+					.filter(line -> !line.isEmpty() && !line.startsWith("#"))
+					.mapToLong(line -> (long) (Double.parseDouble(line) * TimeUnit.MILLISECONDS.toNanos(1)))
+					.toArray();
+	}
+}
@@ -0,0 +1,39 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 부하 테스트에서 수집한 요청별 지연시간(나노초)으로 처리량과 백분위 지연시간을 계산한다.
+ */
+class LatencyReport {
+	private final String name;
+	private final long[] sortedLatencies;
+	private final long elapsedNanos;
+
+	LatencyReport(String name, long[] latencies, long elapsedNanos) {
+		this.name = name;
+		this.sortedLatencies = latencies.clone();
+		this.elapsedNanos = elapsedNanos;
+		Arrays.sort(sortedLatencies);
+	}
+
+	double throughputPerSecond() {
+		return sortedLatencies.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	long percentileMillis(double percentile) {
+		if (sortedLatencies.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+		return TimeUnit.NANOSECONDS.toMillis(sortedLatencies[Math.max(0, index)]);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-24s requests=%d elapsed=%dms throughput=%.1f/s p50=%dms p99=%dms max=%dms",
+				name, sortedLatencies.length, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), throughputPerSecond(),
+				percentileMillis(50), percentileMillis(99), percentileMillis(100));
+	}
+}
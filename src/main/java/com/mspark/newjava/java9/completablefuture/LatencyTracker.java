@@ -0,0 +1,54 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.util.Arrays;
+
+/**
+ * 최근 windowSize 개의 지연시간(나노초)을 보관하고 백분위 값을 계산한다.
+ *
+ * 정렬된 사본은 새로운 샘플이 window 의 1/16 이상 쌓였을 때만 다시 만들기 때문에,
+ * 요청마다 백분위 값을 물어봐도 대부분은 배열 조회로 끝난다.
+ */
+class LatencyTracker {
+	private final long[] samples;
+	private final int resortThreshold;
+	private long[] sorted = new long[0];
+	private int count;
+	private int next;
+	private int unsortedRecords;
+
+	LatencyTracker(int windowSize) {
+		if (windowSize <= 0) {
+			throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+		}
+		this.samples = new long[windowSize];
+		this.resortThreshold = Math.max(1, windowSize / 16);
+	}
+
+	synchronized void record(long latencyNanos) {
+		samples[next] = latencyNanos;
+		next = (next + 1) % samples.length;
+		count = Math.min(count + 1, samples.length);
+		unsortedRecords++;
+	}
+
+	synchronized int sampleCount() {
+		return count;
+	}
+
+	/**
+	 * @param percentile 0 ~ 100
+	 * @return 샘플이 없으면 0
+	 */
+	synchronized long percentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		if (unsortedRecords >= resortThreshold || sorted.length != count) {
+			sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			unsortedRecords = 0;
+		}
+		int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+		return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+	}
+}
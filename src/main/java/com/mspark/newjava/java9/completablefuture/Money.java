@@ -0,0 +1,163 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * long 형의 최소 단위 금액(minor units)과 명시적인 scale 로 표현하는 고정소수점 금액.
+ *
+ * Utils.decimal(BigDecimal) 은 double 로 변환한 뒤 다시 BigDecimal 을 만들어 반올림하므로
+ * 객체 할당이 여러번 일어나고 double 변환 과정에서 정밀도를 잃을 수 있다.
+ * Money 는 환율 곱셈을 long 연산과 정확한 HALF_UP 반올림으로 처리한다.
+ * BigDecimal 과의 변환(of(), toBigDecimal())은 API 경계에서만 사용한다.
+ *
+ * 중간 곱셈이 long 범위를 넘는 경우에만 BigDecimal 로 계산한다.
+ */
+final class Money implements Comparable<Money> {
+	private static final long[] POWERS_OF_TEN = new long[19];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private final long minorUnits;
+	private final int scale;
+
+	private Money(long minorUnits, int scale) {
+		this.minorUnits = minorUnits;
+		this.scale = scale;
+	}
+
+	static Money ofMinor(long minorUnits, int scale) {
+		checkScale(scale);
+		return new Money(minorUnits, scale);
+	}
+
+	/**
+	 * @throws ArithmeticException scale 에 맞춘 금액이 long 범위를 넘는 경우
+	 */
+	static Money of(BigDecimal amount, int scale) {
+		checkScale(scale);
+		return new Money(minorUnitsOf(amount, scale), scale);
+	}
+
+	/**
+	 * of(amount, scale).minorUnits() 와 같지만 Money 를 만들지 않는다.
+	 * amount 의 scale 이 이미 scale 과 같으면 setScale() 도 하지 않는다.
+	 * unscaledValue() 는 BigInteger 를 만들지만, scale 0 으로 옮긴 BigDecimal 의 longValueExact() 는
+	 * 내부의 long 값을 그대로 돌려주고 옮긴 BigDecimal 은 탈출하지 않으므로 JIT 이 할당을 없앤다.
+	 */
+	static long minorUnitsOf(BigDecimal amount, int scale) {
+		checkScale(scale);
+		if (amount.scale() != scale) {
+			amount = amount.setScale(scale, RoundingMode.HALF_UP);
+		}
+		return amount.scaleByPowerOfTen(scale).longValueExact();
+	}
+
+	long minorUnits() {
+		return minorUnits;
+	}
+
+	int scale() {
+		return scale;
+	}
+
+	BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(minorUnits, scale);
+	}
+
+	/**
+	 * rateUnits / 10^rateScale 을 곱하고 이 금액의 scale 로 HALF_UP 반올림한다.
+	 */
+	Money multiply(long rateUnits, int rateScale) {
+		return new Money(multiplyMinorUnits(minorUnits, rateUnits, rateScale), scale);
+	}
+
+	Money multiply(BigDecimal rate) {
+		return multiply(ExchangeRate.of(rate));
+	}
+
+	Money multiply(ExchangeRate rate) {
+		return multiply(rate.units(), rate.scale());
+	}
+
+	Money plus(Money other) {
+		checkSameScale(other);
+		return new Money(Math.addExact(minorUnits, other.minorUnits), scale);
+	}
+
+	Money minus(Money other) {
+		checkSameScale(other);
+		return new Money(Math.subtractExact(minorUnits, other.minorUnits), scale);
+	}
+
+	/**
+	 * 할당 없이 minorUnits * rateUnits / 10^rateScale 을 HALF_UP 으로 반올림한다. 핫패스에서는 이 메서드를 직접 사용한다.
+	 */
+	static long multiplyMinorUnits(long minorUnits, long rateUnits, int rateScale) {
+		checkScale(rateScale);
+		long product;
+		try {
+			product = Math.multiplyExact(minorUnits, rateUnits);
+		} catch (ArithmeticException overflow) {
+			return BigDecimal.valueOf(minorUnits)
+							 .multiply(BigDecimal.valueOf(rateUnits, rateScale))
+							 .setScale(0, RoundingMode.HALF_UP)
+							 .longValueExact();
+		}
+		return divideHalfUp(product, POWERS_OF_TEN[rateScale]);
+	}
+
+	private static long divideHalfUp(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+		if (Math.abs(remainder) * 2 >= divisor) {
+			quotient += Long.signum(dividend);
+		}
+		return quotient;
+	}
+
+	static void checkScale(int scale) {
+		if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+			throw new IllegalArgumentException("scale must be in [0, " + (POWERS_OF_TEN.length - 1) + "]: " + scale);
+		}
+	}
+
+	private void checkSameScale(Money other) {
+		if (scale != other.scale) {
+			throw new IllegalArgumentException("Scale mismatch: " + scale + " != " + other.scale);
+		}
+	}
+
+	@Override
+	public int compareTo(Money other) {
+		checkSameScale(other);
+		return Long.compare(minorUnits, other.minorUnits);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof Money)) {
+			return false;
+		}
+		Money money = (Money) other;
+		return minorUnits == money.minorUnits && scale == money.scale;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Long.hashCode(minorUnits) + scale;
+	}
+
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString();
+	}
+}
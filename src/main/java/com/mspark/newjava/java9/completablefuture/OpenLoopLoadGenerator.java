@@ -0,0 +1,159 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 고정된 도착률(open-loop)로 요청을 보내고 coordinated omission 을 보정한 지연시간을 측정한다.
+ *
+ * i 번째 요청의 예정 시각은 start + i * (1초 / rate) 이며, 앞선 요청이 끝나기를 기다리지 않는다.
+ * 요청을 보내는 스레드가 밀려서 예정 시각보다 늦게 보낸 경우, 보정된 지연시간은 예정 시각부터, 보정되지 않은 지연시간은
+ * 실제로 보낸 시각부터 잰다. 두 값의 차이가 크다면 부하 생성기 자체가 밀리고 있다는 뜻이다.
+ *
+ * main 은 같은 seed 의 LatencyModel 로 기본 서비스, 환율 캐시, hedge 를 같은 부하에서 비교한다.
+ * hedge 는 p50/p90/p95 지연시간을 기준으로 각각 실행하며, baseline 과 p99 및 추가 백엔드 호출 비율을 비교하면 된다.
+ * 인자: [rate/s] [seconds] [seed] [trace file] (기본 200, 5, 42, 없음)
+ * trace file 을 지정하면 항공권 가격 조회의 지연시간으로 LatencyModel.replay() 를 사용한다.
+ */
+public class OpenLoopLoadGenerator {
+	private final double ratePerSecond;
+	private final Duration duration;
+
+	OpenLoopLoadGenerator(double ratePerSecond, Duration duration) {
+		if (ratePerSecond <= 0) {
+			throw new IllegalArgumentException("rate must be positive: " + ratePerSecond);
+		}
+		this.ratePerSecond = ratePerSecond;
+		this.duration = duration;
+	}
+
+	public static void main(String[] args) throws IOException {
+		double rate = args.length > 0 ? Double.parseDouble(args[0]) : 200;
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+		long[] trace = args.length > 3 ? LatencyModel.readTrace(Paths.get(args[3])) : null;
+
+		OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(rate, Duration.ofSeconds(seconds));
+		HashedWheelTimer timer = HashedWheelTimer.shared();
+
+		System.out.println(generator.run("baseline", quotes(
+				new FlightRoutePriceFinder(flightLatency(trace, seed), seed),
+				new ExchangeService(exchangeLatency(seed)))));
+
+		CachingExchangeService caching = new CachingExchangeService(
+				Duration.ofSeconds(10), Duration.ofSeconds(2), Duration.ofSeconds(1), exchangeLatency(seed));
+		System.out.println(generator.run("caching", quotes(
+				new FlightRoutePriceFinder(flightLatency(trace, seed), seed), caching)) + "\n  " + caching);
+
+		for (double percentile : new double[] {50, 90, 95}) {
+			HedgedFlightRoutePriceFinder hedged =
+					new HedgedFlightRoutePriceFinder(percentile, 10, 100, timer, flightLatency(trace, seed), seed);
+			System.out.println(generator.run("hedge@p" + (int) percentile,
+											 quotes(hedged, new ExchangeService(exchangeLatency(seed))))
+					+ "\n  " + hedged);
+		}
+	}
+
+	/**
+	 * 대부분 로그정규분포로 빠르게 응답하지만 5% 는 기존 Delay 처럼 750 ~ 1000ms 가 걸린다.
+	 * 모델은 상태(난수 카운터, trace 위치)를 가지므로 실행마다 새로 만들어야 모든 실행이 같은 지연시간 순서를 받는다.
+	 */
+	private static LatencyModel flightLatency(long[] trace, long seed) {
+		if (trace != null) {
+			return LatencyModel.replay(trace);
+		}
+		return LatencyModel.bimodal(LatencyModel.logNormal(40, 0.4, seed),
+									LatencyModel.uniform(750, 1000, seed + 1), 0.05, seed + 2);
+	}
+
+	private static LatencyModel exchangeLatency(long seed) {
+		return LatencyModel.logNormal(30, 0.5, seed + 3);
+	}
+
+	private static Supplier<CompletableFuture<BigDecimal>> quotes(FlightRoutePriceFinder finder, ExchangeService exchange) {
+		return () -> finder.bestForAsync(AirportCode.LCY, AirportCode.JFK)
+						   .thenCombine(exchange.rateForAsync(Currency.GBP), CompletableFutureImprovements::convert);
+	}
+
+	Result run(String name, Supplier<? extends CompletableFuture<?>> request) {
+		int count = Math.toIntExact((long) (ratePerSecond * duration.toNanos() / TimeUnit.SECONDS.toNanos(1)));
+		double intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+		long[] corrected = new long[count];
+		long[] uncorrected = new long[count];
+		CompletableFuture<?>[] responses = new CompletableFuture<?>[count];
+		LongAdder failures = new LongAdder();
+
+		long start = System.nanoTime();
+		long maxSendLagNanos = 0;
+		for (int i = 0; i < count; i++) {
+			long intendedAt = start + (long) (i * intervalNanos);
+			long now;
+			while ((now = System.nanoTime()) < intendedAt) {
+				LockSupport.parkNanos(intendedAt - now);
+			}
+			maxSendLagNanos = Math.max(maxSendLagNanos, now - intendedAt);
+
+			int index = i;
+			long sentAt = now;
+			CompletableFuture<?> response;
+			try {
+				response = request.get();
+			} catch (RuntimeException exception) {
+				response = CompletableFuture.failedFuture(exception);
+			}
+			responses[i] = response.whenComplete((value, throwable) -> {
+				long completedAt = System.nanoTime();
+				corrected[index] = completedAt - intendedAt;
+				uncorrected[index] = completedAt - sentAt;
+				if (throwable != null) {
+					failures.increment();
+				}
+			});
+		}
+		CompletableFuture.allOf(responses).handle((ignored, throwable) -> null).join();
+		long elapsedNanos = System.nanoTime() - start;
+
+		return new Result(new LatencyReport(name, corrected, elapsedNanos),
+						  new LatencyReport(name + " (uncorrected)", uncorrected, elapsedNanos),
+						  failures.sum(), maxSendLagNanos);
+	}
+
+	static final class Result {
+		private final LatencyReport corrected;
+		private final LatencyReport uncorrected;
+		private final long failures;
+		private final long maxSendLagNanos;
+
+		private Result(LatencyReport corrected, LatencyReport uncorrected, long failures, long maxSendLagNanos) {
+			this.corrected = corrected;
+			this.uncorrected = uncorrected;
+			this.failures = failures;
+			this.maxSendLagNanos = maxSendLagNanos;
+		}
+
+		LatencyReport corrected() {
+			return corrected;
+		}
+
+		LatencyReport uncorrected() {
+			return uncorrected;
+		}
+
+		long failures() {
+			return failures;
+		}
+
+		@Override
+		public String toString() {
+			return corrected + " failures=" + failures
+					+ " maxSendLag=" + TimeUnit.NANOSECONDS.toMillis(maxSendLagNanos) + "ms\n  " + uncorrected;
+		}
+	}
+}
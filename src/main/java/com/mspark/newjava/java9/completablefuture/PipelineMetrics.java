@@ -0,0 +1,358 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * supplyAsync -> thenCombine -> orTimeout -> whenComplete 파이프라인의 단계별 지연시간과 타임아웃, 대체값, 예외 건수.
+ *
+ * timed() 로 감싼 함수는 실행 시간을 PipelineStage 별 LatencyHistogram 에 기록하고, 예외를 던지면 예외 건수를 센다.
+ * 단계당 추가 비용은 System.nanoTime() 두번과 히스토그램 기록 한번이다.
+ * 요청 하나의 단계들을 이어서 재는 경우에는 trace() 가 단계의 끝 시각을 다음 단계의 시작 시각으로 다시 사용하므로
+ * 단계당 System.nanoTime() 한번과 히스토그램 기록 한번으로 줄어든다. (InstrumentedQuotePipeline 이 사용한다)
+ * orTimeout(), completeOnTimeout() 은 HashedWheelTimer 의 같은 이름의 헬퍼와 같지만 타임아웃 구간의 지연시간과
+ * 타임아웃 건수, 대체값을 사용한 건수를 함께 센다. 앞 단계에서 전파된 예외는 그 단계에서 이미 세었으므로 다시 세지 않는다.
+ *
+ * snapshot() 으로 코드에서 읽거나, register() 로 JMX 에 등록하여 JConsole 등에서 볼 수 있다.
+ */
+class PipelineMetrics implements PipelineMetricsMBean {
+	private static final PipelineStage[] STAGES = PipelineStage.values();
+
+	private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+	private final LongAdder[] stageExceptions = new LongAdder[STAGES.length];
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+
+	PipelineMetrics() {
+		for (int i = 0; i < STAGES.length; i++) {
+			histograms[i] = new LatencyHistogram();
+			stageExceptions[i] = new LongAdder();
+		}
+	}
+
+	<T> Supplier<T> timed(PipelineStage stage, Supplier<T> supplier) {
+		return () -> {
+			long start = System.nanoTime();
+			try {
+				T value = supplier.get();
+				histograms[stage.ordinal()].record(System.nanoTime() - start);
+				return value;
+			} catch (RuntimeException | Error exception) {
+				recordFailure(stage, start);
+				throw exception;
+			}
+		};
+	}
+
+	<T, U, R> BiFunction<T, U, R> timed(PipelineStage stage, BiFunction<T, U, R> function) {
+		return (first, second) -> {
+			long start = System.nanoTime();
+			try {
+				R value = function.apply(first, second);
+				histograms[stage.ordinal()].record(System.nanoTime() - start);
+				return value;
+			} catch (RuntimeException | Error exception) {
+				recordFailure(stage, start);
+				throw exception;
+			}
+		};
+	}
+
+	/**
+	 * 이미 시작된 비동기 단계가 완료될 때 까지의 시간을 기록한다.
+	 */
+	<T> CompletableFuture<T> timed(PipelineStage stage, CompletableFuture<T> future) {
+		long start = System.nanoTime();
+		return future.whenComplete((value, error) -> {
+			if (error == null) {
+				histograms[stage.ordinal()].record(System.nanoTime() - start);
+			} else {
+				recordFailure(stage, start);
+			}
+		});
+	}
+
+	/**
+	 * HashedWheelTimer.orTimeout() 과 같다. 타임아웃 구간의 지연시간을 TIMEOUT 단계로 기록하고 타임아웃 건수를 센다.
+	 */
+	<T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit, HashedWheelTimer timer) {
+		long start = System.nanoTime();
+		timer.orTimeout(future, timeout, unit);
+		return future.whenComplete((value, error) -> {
+			histograms[PipelineStage.TIMEOUT.ordinal()].record(System.nanoTime() - start);
+			if (error != null && unwrap(error) instanceof TimeoutException) {
+				timeouts.increment();
+			}
+		});
+	}
+
+	/**
+	 * HashedWheelTimer.completeOnTimeout() 과 같다. 타이머가 value 로 완료시킨 경우에만 타임아웃과 대체값 건수를 센다.
+	 */
+	<T> CompletableFuture<T> completeOnTimeout(CompletableFuture<T> future, T value, long timeout, TimeUnit unit,
+											   HashedWheelTimer timer) {
+		long start = System.nanoTime();
+		if (!future.isDone()) {
+			HashedWheelTimer.Timeout scheduled = timer.newTimeout(() -> {
+				if (future.complete(value)) {
+					timeouts.increment();
+					fallbacks.increment();
+				}
+			}, timeout, unit);
+			future.whenComplete((result, error) -> scheduled.cancel());
+		}
+		return future.whenComplete((result, error) -> histograms[PipelineStage.TIMEOUT.ordinal()].record(System.nanoTime() - start));
+	}
+
+	/**
+	 * 지금부터 시작하는 요청 하나의 단계들을 잴 Trace
+	 */
+	Trace trace() {
+		return new Trace(this, System.nanoTime());
+	}
+
+	/**
+	 * 캐시된 값이나 기본값처럼 타임아웃 이외의 이유로 대체값을 사용했을 때 호출한다.
+	 */
+	void recordFallback() {
+		fallbacks.increment();
+	}
+
+	Snapshot snapshot() {
+		Map<PipelineStage, LatencyHistogram.Snapshot> stages = new EnumMap<>(PipelineStage.class);
+		Map<PipelineStage, Long> exceptions = new EnumMap<>(PipelineStage.class);
+		for (PipelineStage stage : STAGES) {
+			stages.put(stage, histograms[stage.ordinal()].snapshot());
+			exceptions.put(stage, stageExceptions[stage.ordinal()].sum());
+		}
+		return new Snapshot(stages, exceptions, timeouts.sum(), fallbacks.sum());
+	}
+
+	/**
+	 * com.mspark.newjava:type=PipelineMetrics,name={name} 으로 플랫폼 MBeanServer 에 등록한다.
+	 */
+	ObjectName register(String name) throws JMException {
+		ObjectName objectName = new ObjectName("com.mspark.newjava:type=PipelineMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer()
+						 .registerMBean(new StandardMBean(this, PipelineMetricsMBean.class), objectName);
+		return objectName;
+	}
+
+	@Override
+	public long getTimeouts() {
+		return timeouts.sum();
+	}
+
+	@Override
+	public long getFallbacks() {
+		return fallbacks.sum();
+	}
+
+	@Override
+	public long getExceptions() {
+		long total = 0;
+		for (LongAdder exceptions : stageExceptions) {
+			total += exceptions.sum();
+		}
+		return total;
+	}
+
+	@Override
+	public String[] getStageSummaries() {
+		String[] summaries = new String[STAGES.length];
+		for (int i = 0; i < STAGES.length; i++) {
+			summaries[i] = STAGES[i] + ": " + histograms[i].snapshot();
+		}
+		return summaries;
+	}
+
+	@Override
+	public long count(String stage) {
+		return histograms[PipelineStage.valueOf(stage).ordinal()].snapshot().count();
+	}
+
+	@Override
+	public double percentileMicros(String stage, double percentile) {
+		return histograms[PipelineStage.valueOf(stage).ordinal()].snapshot().percentileMicros(percentile);
+	}
+
+	private void recordFailure(PipelineStage stage, long start) {
+		recordFailure(stage, start, System.nanoTime());
+	}
+
+	private void recordFailure(PipelineStage stage, long start, long end) {
+		histograms[stage.ordinal()].record(end - start);
+		stageExceptions[stage.ordinal()].increment();
+	}
+
+	private static Throwable unwrap(Throwable error) {
+		return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+	}
+
+	/**
+	 * 요청 하나의 단계 경계 시각을 공유하며 단계별 지연시간을 기록한다.
+	 *
+	 * 모든 단계는 직전 경계부터 끝날 때 까지를 잰다. 첫 단계(Supplier)의 직전 경계는 trace() 를 만든 시각이므로
+	 * Executor 의 큐에서 기다린 시간이 포함되고, BiFunction 단계의 직전 경계는 앞 단계들 중 가장 늦게 끝난 시각이므로
+	 * thenCombine 이 넘겨주는 시간이 포함된다. 즉 각 단계가 요청의 전체 지연시간에 더한 몫을 기록한다.
+	 * 타임아웃 구간은 trace() 부터 future 가 완료될 때 까지이며, 마지막 단계가 future 를 완료시켰다면 그 끝 시각을 그대로 사용한다.
+	 *
+	 * 단계의 끝 시각은 단계별 칸에 일반 쓰기로 남긴다. 병렬로 실행되는 단계는 서로 다른 칸에 쓰고, 다음 단계는
+	 * CompletableFuture 의 완료를 거쳐 실행되므로 happens-before 가 보장되어 CAS 나 volatile 이 필요 없다.
+	 */
+	static final class Trace {
+		private final PipelineMetrics metrics;
+		private final long startedAt;
+		private final long[] endedAt = new long[STAGES.length];
+		private volatile boolean timerCompleted;
+
+		private Trace(PipelineMetrics metrics, long startedAt) {
+			this.metrics = metrics;
+			this.startedAt = startedAt;
+		}
+
+		<T> Supplier<T> timed(PipelineStage stage, Supplier<T> supplier) {
+			return () -> {
+				T value;
+				try {
+					value = supplier.get();
+				} catch (RuntimeException | Error exception) {
+					metrics.recordFailure(stage, startedAt);
+					throw exception;
+				}
+				record(stage, startedAt);
+				return value;
+			};
+		}
+
+		<T, U, R> BiFunction<T, U, R> timed(PipelineStage stage, BiFunction<T, U, R> function) {
+			return (first, second) -> {
+				long start = lastBoundary();
+				R value;
+				try {
+					value = function.apply(first, second);
+				} catch (RuntimeException | Error exception) {
+					metrics.recordFailure(stage, start);
+					throw exception;
+				}
+				record(stage, start);
+				return value;
+			};
+		}
+
+		/**
+		 * PipelineMetrics.orTimeout() 과 같지만 구간의 시작은 trace() 를 만든 시각이다.
+		 */
+		<T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit, HashedWheelTimer timer) {
+			timer.orTimeout(future, timeout, unit);
+			return future.whenComplete((value, error) -> {
+				metrics.histograms[PipelineStage.TIMEOUT.ordinal()].record(completedAt(error) - startedAt);
+				if (error != null && unwrap(error) instanceof TimeoutException) {
+					metrics.timeouts.increment();
+				}
+			});
+		}
+
+		/**
+		 * PipelineMetrics.completeOnTimeout() 과 같지만 구간의 시작은 trace() 를 만든 시각이다.
+		 */
+		<T> CompletableFuture<T> completeOnTimeout(CompletableFuture<T> future, T value, long timeout, TimeUnit unit,
+												   HashedWheelTimer timer) {
+			if (!future.isDone()) {
+				HashedWheelTimer.Timeout scheduled = timer.newTimeout(() -> {
+					timerCompleted = true;
+					if (future.complete(value)) {
+						metrics.timeouts.increment();
+						metrics.fallbacks.increment();
+					}
+				}, timeout, unit);
+				future.whenComplete((result, error) -> scheduled.cancel());
+			}
+			return future.whenComplete((result, error) ->
+					metrics.histograms[PipelineStage.TIMEOUT.ordinal()].record(completedAt(error) - startedAt));
+		}
+
+		private void record(PipelineStage stage, long start) {
+			long end = System.nanoTime();
+			metrics.histograms[stage.ordinal()].record(end - start);
+			endedAt[stage.ordinal()] = end;
+		}
+
+		/**
+		 * 지금까지 끝난 단계 중 가장 늦은 끝 시각. 끝난 단계가 없으면 trace() 를 만든 시각
+		 */
+		private long lastBoundary() {
+			long last = startedAt;
+			for (long end : endedAt) {
+				if (end - last > 0) {
+					last = end;
+				}
+			}
+			return last;
+		}
+
+		/**
+		 * 마지막 단계가 정상적으로 완료시켰다면 그 끝 시각, 타이머나 예외로 완료되었다면 지금 시각
+		 */
+		private long completedAt(Throwable error) {
+			long last = lastBoundary();
+			return error == null && !timerCompleted && last != startedAt ? last : System.nanoTime();
+		}
+	}
+
+	/**
+	 * 한 시점의 단계별 히스토그램과 건수
+	 */
+	static final class Snapshot {
+		private final Map<PipelineStage, LatencyHistogram.Snapshot> stages;
+		private final Map<PipelineStage, Long> exceptions;
+		private final long timeouts;
+		private final long fallbacks;
+
+		Snapshot(Map<PipelineStage, LatencyHistogram.Snapshot> stages, Map<PipelineStage, Long> exceptions,
+				 long timeouts, long fallbacks) {
+			this.stages = stages;
+			this.exceptions = exceptions;
+			this.timeouts = timeouts;
+			this.fallbacks = fallbacks;
+		}
+
+		LatencyHistogram.Snapshot stage(PipelineStage stage) {
+			return stages.get(stage);
+		}
+
+		long exceptions(PipelineStage stage) {
+			return exceptions.get(stage);
+		}
+
+		long timeouts() {
+			return timeouts;
+		}
+
+		long fallbacks() {
+			return fallbacks;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder();
+			for (PipelineStage stage : STAGES) {
+				builder.append(stage).append(": ").append(stages.get(stage))
+					   .append(", exceptions=").append(exceptions.get(stage)).append(System.lineSeparator());
+			}
+			return builder.append("timeouts=").append(timeouts).append(", fallbacks=").append(fallbacks).toString();
+		}
+	}
+}
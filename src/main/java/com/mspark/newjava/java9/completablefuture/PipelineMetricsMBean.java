@@ -0,0 +1,29 @@
+package com.mspark.newjava.java9.completablefuture;
+
+/**
+ * PipelineMetrics 의 JMX 관리 인터페이스. JMX 는 MBean 인터페이스가 public 이어야 등록할 수 있다.
+ */
+public interface PipelineMetricsMBean {
+
+	long getTimeouts();
+
+	long getFallbacks();
+
+	long getExceptions();
+
+	/**
+	 * 단계별 한 줄 요약 (건수, p50, p99, 최대값)
+	 */
+	String[] getStageSummaries();
+
+	/**
+	 * @param stage PipelineStage 이름 (예: BEST_FOR)
+	 */
+	long count(String stage);
+
+	/**
+	 * @param stage PipelineStage 이름 (예: BEST_FOR)
+	 * @param percentile 0 ~ 100
+	 */
+	double percentileMicros(String stage, double percentile);
+}
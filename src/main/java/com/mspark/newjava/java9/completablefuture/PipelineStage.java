@@ -0,0 +1,9 @@
+package com.mspark.newjava.java9.completablefuture;
+
+/**
+ * PipelineMetrics 가 지연시간을 따로 기록하는 견적 파이프라인의 단계.
+ * TIMEOUT 은 타임아웃이 걸린 구간 전체의 지연시간이다.
+ */
+enum PipelineStage {
+	BEST_FOR, RATE_FOR, CONVERT, TIMEOUT
+}
@@ -0,0 +1,42 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+
+/**
+ * 노선의 가격을 주어진 통화로 환산한 결과.
+ * stale 은 백엔드가 응답하지 않아 그 노선의 마지막 성공 가격으로 대신했음을 뜻한다.
+ */
+final class Quote {
+	private final Route route;
+	private final Currency currency;
+	private final BigDecimal amount;
+	private final boolean stale;
+
+	Quote(Route route, Currency currency, BigDecimal amount, boolean stale) {
+		this.route = route;
+		this.currency = currency;
+		this.amount = amount;
+		this.stale = stale;
+	}
+
+	Route getRoute() {
+		return route;
+	}
+
+	Currency getCurrency() {
+		return currency;
+	}
+
+	BigDecimal getAmount() {
+		return amount;
+	}
+
+	boolean isStale() {
+		return stale;
+	}
+
+	@Override
+	public String toString() {
+		return route + " " + amount + " " + currency + (stale ? " (stale)" : "");
+	}
+}
@@ -0,0 +1,47 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 각 ExecutionStrategy 별로 LCY -> JFK 가격 조회 요청을 동시에 발생시키고 처리량과 p50/p99 지연시간을 출력한다.
+ *
+ * 첫번째 인자로 동시 요청 수를 지정할 수 있다. (기본 10,000)
+ * 블로킹 Delay 를 사용하므로 COMMON_POOL 은 요청 수 / 스레드 수 에 비례하여 오래 걸린다.
+ */
+public class QuoteLoadHarness {
+	private static final int DEFAULT_CONCURRENT_QUOTES = 10_000;
+
+	public static void main(String[] args) {
+		int concurrentQuotes = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CONCURRENT_QUOTES;
+
+		for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+			if (!strategy.isSupported()) {
+				System.out.println(strategy + " skipped: not supported on Java " + System.getProperty("java.version"));
+				continue;
+			}
+			System.out.println(run(strategy, concurrentQuotes));
+		}
+	}
+
+	static LatencyReport run(ExecutionStrategy strategy, int concurrentQuotes) {
+		ExecutorService executor = strategy.newExecutor();
+		try {
+			QuotePipeline pipeline = new QuotePipeline(new FlightRoutePriceFinder(), new ExchangeService(), executor);
+			long[] latencies = new long[concurrentQuotes];
+			CompletableFuture<?>[] quotes = new CompletableFuture<?>[concurrentQuotes];
+
+			long start = System.nanoTime();
+			for (int i = 0; i < concurrentQuotes; i++) {
+				int index = i;
+				long submittedAt = System.nanoTime();
+				quotes[i] = pipeline.quote(AirportCode.LCY, AirportCode.JFK, Currency.GBP)
+									.thenRun(() -> latencies[index] = System.nanoTime() - submittedAt);
+			}
+			CompletableFuture.allOf(quotes).join();
+			return new LatencyReport(strategy.name(), latencies, System.nanoTime() - start);
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
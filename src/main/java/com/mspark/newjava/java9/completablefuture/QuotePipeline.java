@@ -0,0 +1,26 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * bestFor() + rateFor() + thenCombine(convert) 파이프라인을 주어진 Executor 위에서 실행한다.
+ */
+class QuotePipeline {
+	private final FlightRoutePriceFinder flightRoutePriceFinder;
+	private final ExchangeService exchangeService;
+	private final Executor executor;
+
+	QuotePipeline(FlightRoutePriceFinder flightRoutePriceFinder, ExchangeService exchangeService, Executor executor) {
+		this.flightRoutePriceFinder = flightRoutePriceFinder;
+		this.exchangeService = exchangeService;
+		this.executor = executor;
+	}
+
+	CompletableFuture<BigDecimal> quote(AirportCode departure, AirportCode destination, Currency currency) {
+		return CompletableFuture.supplyAsync(() -> flightRoutePriceFinder.bestFor(departure, destination), executor)
+								.thenCombine(CompletableFuture.supplyAsync(() -> exchangeService.rateFor(currency), executor),
+											 CompletableFutureImprovements::convert);
+	}
+}
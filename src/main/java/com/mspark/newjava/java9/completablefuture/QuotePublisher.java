@@ -0,0 +1,149 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Java9 에서 추가된 Flow API 로 여러 노선의 가격을 계속해서 발행하는 Publisher.
+ *
+ * 구독자가 request(n) 으로 요청한 만큼만 bestForAsync() 와 rateForAsync() 를 호출하여 Quote 를 만든다.
+ * 요청이 많으면 최대 maxBatch 개의 가격 조회를 한번에 보내고, 환율은 배치마다 한번만 조회한다.
+ * 구독자가 요청하지 않으면 조회를 멈추므로, 발행 대기중인 Quote 와 진행중인 조회의 합은 항상 남은 요청 수 이하이다.
+ *
+ * 노선 목록을 순서대로 돌며 무한히 발행한다. 조회가 실패하면 onError 로 구독을 끝낸다.
+ */
+class QuotePublisher implements Flow.Publisher<Quote> {
+	private final FlightRoutePriceFinder flightRoutePriceFinder;
+	private final ExchangeService exchangeService;
+	private final List<Route> routes;
+	private final Currency currency;
+	private final int maxBatch;
+
+	QuotePublisher(FlightRoutePriceFinder flightRoutePriceFinder, ExchangeService exchangeService,
+				   List<Route> routes, Currency currency, int maxBatch) {
+		if (routes.isEmpty()) {
+			throw new IllegalArgumentException("routes must not be empty");
+		}
+		if (maxBatch <= 0) {
+			throw new IllegalArgumentException("maxBatch must be positive: " + maxBatch);
+		}
+		this.flightRoutePriceFinder = flightRoutePriceFinder;
+		this.exchangeService = exchangeService;
+		this.routes = List.of(routes.toArray(new Route[0]));
+		this.currency = currency;
+		this.maxBatch = maxBatch;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super Quote> subscriber) {
+		Objects.requireNonNull(subscriber);
+		subscriber.onSubscribe(new QuoteSubscription(subscriber));
+	}
+
+	private final class QuoteSubscription implements Flow.Subscription {
+		private final Flow.Subscriber<? super Quote> subscriber;
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+		private final Queue<Quote> ready = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger readyCount = new AtomicInteger();
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private volatile boolean cancelled;
+		private volatile Throwable error;
+		private int nextRoute;
+
+		private QuoteSubscription(Flow.Subscriber<? super Quote> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				error = new IllegalArgumentException("non-positive request: " + n);
+			} else {
+				requested.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			drain();
+		}
+
+		/**
+		 * 한번에 하나의 스레드만 onNext() 를 호출하도록 직렬화한다. 이미 다른 스레드가 실행중이면 한번 더 돌도록 표시만 한다.
+		 */
+		private void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				if (cancelled) {
+					ready.clear();
+				} else if (error != null) {
+					cancelled = true;
+					ready.clear();
+					subscriber.onError(error);
+				} else {
+					emit();
+					fetch();
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void emit() {
+			long demand = requested.get();
+			long emitted = 0;
+			while (emitted < demand && !cancelled) {
+				Quote quote = ready.poll();
+				if (quote == null) {
+					break;
+				}
+				readyCount.decrementAndGet();
+				subscriber.onNext(quote);
+				emitted++;
+			}
+			if (emitted > 0 && demand != Long.MAX_VALUE) {
+				requested.addAndGet(-emitted);
+			}
+		}
+
+		private void fetch() {
+			long unfetched = requested.get() - readyCount.get() - inFlight.get();
+			int batch = (int) Math.min(unfetched, maxBatch - inFlight.get());
+			if (batch <= 0 || cancelled) {
+				return;
+			}
+
+			inFlight.addAndGet(batch);
+			CompletableFuture<BigDecimal> rate = exchangeService.rateForAsync(currency);
+			for (int i = 0; i < batch; i++) {
+				Route route = routes.get(nextRoute);
+				nextRoute = (nextRoute + 1) % routes.size();
+				flightRoutePriceFinder.bestForAsync(route.getDeparture(), route.getDestination())
+									  .thenCombine(rate, (price, exchangeRate) ->
+											  new Quote(route, currency, CompletableFutureImprovements.convert(price, exchangeRate), false))
+									  .whenComplete((quote, failure) -> {
+										  if (failure == null) {
+											  readyCount.incrementAndGet();
+											  ready.offer(quote);
+										  } else if (error == null) {
+											  error = failure;
+										  }
+										  inFlight.decrementAndGet();
+										  drain();
+									  });
+			}
+		}
+	}
+}
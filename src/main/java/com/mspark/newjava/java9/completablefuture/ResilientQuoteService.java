@@ -0,0 +1,147 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 고정된 orTimeout(1, SECONDS) 와 completeOnTimeout(DEFAULT_VALUE) 대신
+ * 노선별 지연시간 분포로 정한 타임아웃과 노선별 마지막 성공 가격을 사용하는 가격 조회 서비스.
+ *
+ * 가격 조회가 타임아웃되거나 실패하면 그 노선의 마지막 성공 가격으로 Quote 를 만들고 stale 로 표시한다.
+ * 노선이 계속 실패하면 CircuitBreaker 가 열려 백엔드를 호출하지 않고 바로 마지막 성공 가격을 돌려준다.
+ * 한번도 성공한 적이 없는 노선은 임의의 값을 만들어내지 않고 예외로 완료된다. (quote() 가 예외를 던지지는 않는다)
+ * 환율 조회도 통화별 지연시간 분포로 정한 타임아웃을 걸고, 타임아웃되거나 실패하면 그 통화의 마지막 성공 환율을 사용한다.
+ * 어느 한쪽이라도 마지막 성공 값을 사용했다면 Quote 는 stale 이다.
+ *
+ * 실패하거나 타임아웃된 호출도 걸린 시간을 지연시간 분포에 기록한다. 성공만 기록하면 느린 호출이 빠져서
+ * 백분위가 실제보다 낮아지고, 타임아웃이 짧아질수록 더 많은 호출이 잘리는 악순환이 생긴다.
+ */
+class ResilientQuoteService {
+	private final FlightRoutePriceFinder flightRoutePriceFinder;
+	private final ExchangeService exchangeService;
+	private final AdaptiveTimeoutPolicy timeoutPolicy;
+	private final HashedWheelTimer timer;
+	private final int failureThreshold;
+	private final Duration openDuration;
+	private final ConcurrentMap<Route, RouteState> routes = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Currency, RateState> rates = new ConcurrentHashMap<>();
+
+	ResilientQuoteService(FlightRoutePriceFinder flightRoutePriceFinder, ExchangeService exchangeService,
+						  AdaptiveTimeoutPolicy timeoutPolicy, HashedWheelTimer timer,
+						  int failureThreshold, Duration openDuration) {
+		this.flightRoutePriceFinder = flightRoutePriceFinder;
+		this.exchangeService = exchangeService;
+		this.timeoutPolicy = timeoutPolicy;
+		this.timer = timer;
+		this.failureThreshold = failureThreshold;
+		this.openDuration = openDuration;
+	}
+
+	CompletableFuture<Quote> quote(AirportCode departure, AirportCode destination, Currency currency) {
+		Route route = Route.of(departure, destination);
+		return price(route).thenCombine(rate(currency),
+				(price, rate) -> new Quote(route, currency, CompletableFutureImprovements.convert(price.amount, rate.amount),
+										   price.stale || rate.stale));
+	}
+
+	long timeoutNanos(Route route) {
+		return timeoutPolicy.timeoutNanos(state(route).latencies);
+	}
+
+	CircuitBreaker.State circuitState(Route route) {
+		return state(route).circuitBreaker.state();
+	}
+
+	private CompletableFuture<Fetched> price(Route route) {
+		RouteState state = state(route);
+		if (!state.circuitBreaker.allowRequest()) {
+			CompletableFuture<Fetched> fallback = new CompletableFuture<>();
+			try {
+				fallback.complete(state.fallback(route, null));
+			} catch (CompletionException exception) {
+				fallback.completeExceptionally(exception);
+			}
+			return fallback;
+		}
+
+		long start = System.nanoTime();
+		CompletableFuture<BigDecimal> call = flightRoutePriceFinder.bestForAsync(route.getDeparture(), route.getDestination());
+		return timer.orTimeout(call, timeoutPolicy.timeoutNanos(state.latencies), TimeUnit.NANOSECONDS)
+					.handle((amount, error) -> {
+						state.latencies.record(System.nanoTime() - start);
+						if (error == null) {
+							state.lastKnownPrice = amount;
+							state.circuitBreaker.onSuccess();
+							return new Fetched(amount, false);
+						}
+						state.circuitBreaker.onFailure();
+						return state.fallback(route, error);
+					});
+	}
+
+	private CompletableFuture<Fetched> rate(Currency currency) {
+		RateState state = rates.computeIfAbsent(currency, key -> new RateState());
+		long start = System.nanoTime();
+		CompletableFuture<BigDecimal> call = exchangeService.rateForAsync(currency);
+		return timer.orTimeout(call, timeoutPolicy.timeoutNanos(state.latencies), TimeUnit.NANOSECONDS)
+					.handle((rate, error) -> {
+						state.latencies.record(System.nanoTime() - start);
+						if (error == null) {
+							state.lastKnownRate = rate;
+							return new Fetched(rate, false);
+						}
+						BigDecimal lastKnown = state.lastKnownRate;
+						if (lastKnown == null) {
+							throw new CompletionException(new IllegalStateException("No rate available for " + currency, error));
+						}
+						return new Fetched(lastKnown, true);
+					});
+	}
+
+	private RouteState state(Route route) {
+		return routes.computeIfAbsent(route, key -> new RouteState(failureThreshold, openDuration));
+	}
+
+	private static final class RouteState {
+		private final LatencyTracker latencies = new LatencyTracker(256);
+		private final CircuitBreaker circuitBreaker;
+		private volatile BigDecimal lastKnownPrice;
+
+		private RouteState(int failureThreshold, Duration openDuration) {
+			this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+		}
+
+		private Fetched fallback(Route route, Throwable error) {
+			BigDecimal lastKnown = lastKnownPrice;
+			if (lastKnown == null) {
+				throw error instanceof CompletionException
+						? (CompletionException) error
+						: new CompletionException(new IllegalStateException("No price available for " + route, error));
+			}
+			return new Fetched(lastKnown, true);
+		}
+	}
+
+	private static final class RateState {
+		private final LatencyTracker latencies = new LatencyTracker(256);
+		private volatile BigDecimal lastKnownRate;
+	}
+
+	/**
+	 * 가격 또는 환율과, 그 값이 마지막 성공 값으로 대신한 것인지 여부
+	 */
+	private static final class Fetched {
+		private final BigDecimal amount;
+		private final boolean stale;
+
+		private Fetched(BigDecimal amount, boolean stale) {
+			this.amount = amount;
+			this.stale = stale;
+		}
+	}
+}
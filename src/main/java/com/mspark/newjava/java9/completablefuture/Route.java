@@ -0,0 +1,50 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.util.Objects;
+
+/**
+ * 출발지와 도착지 쌍. 노선별 캐시, 요청 병합 등의 키로 사용한다.
+ */
+final class Route {
+	private final AirportCode departure;
+	private final AirportCode destination;
+
+	private Route(AirportCode departure, AirportCode destination) {
+		this.departure = Objects.requireNonNull(departure);
+		this.destination = Objects.requireNonNull(destination);
+	}
+
+	static Route of(AirportCode departure, AirportCode destination) {
+		return new Route(departure, destination);
+	}
+
+	AirportCode getDeparture() {
+		return departure;
+	}
+
+	AirportCode getDestination() {
+		return destination;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof Route)) {
+			return false;
+		}
+		Route route = (Route) other;
+		return departure == route.departure && destination == route.destination;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * departure.hashCode() + destination.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return departure + "->" + destination;
+	}
+}
@@ -0,0 +1,71 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 같은 키에 대한 동시 요청을 하나의 백엔드 호출로 합친다.
+ *
+ * 처음 도착한 요청만 loader 를 호출하고, 그 결과가 나오기 전에 도착한 같은 키의 요청들은 진행중인 CompletableFuture 를 공유한다.
+ * 결과가 나오면 진행중 목록에서 제거되므로 이후의 요청은 다시 백엔드를 호출한다. (결과를 캐시하지 않는다)
+ *
+ * 호출자에게는 Java9 에서 추가된 copy() 로 만든 사본을 돌려주므로, 한 호출자가 자신의 future 를 cancel() 하거나
+ * complete() 하더라도 같은 요청을 기다리는 다른 호출자에게 영향을 주지 않는다.
+ */
+class SingleFlight<K, V> {
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder backendCalls = new LongAdder();
+
+	CompletableFuture<V> execute(K key, Function<? super K, ? extends CompletableFuture<V>> loader) {
+		requests.increment();
+		CompletableFuture<V> created = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+		if (existing != null) {
+			return existing.copy();
+		}
+
+		backendCalls.increment();
+		try {
+			loader.apply(key).whenComplete((value, error) -> {
+				inFlight.remove(key, created);
+				if (error == null) {
+					created.complete(value);
+				} else {
+					created.completeExceptionally(error);
+				}
+			});
+		} catch (RuntimeException exception) {
+			inFlight.remove(key, created);
+			created.completeExceptionally(exception);
+		}
+		return created.copy();
+	}
+
+	long requests() {
+		return requests.sum();
+	}
+
+	long backendCalls() {
+		return backendCalls.sum();
+	}
+
+	/**
+	 * 요청 병합으로 절약한 백엔드 호출 수
+	 */
+	long savedCalls() {
+		return requests() - backendCalls();
+	}
+
+	int inFlight() {
+		return inFlight.size();
+	}
+
+	@Override
+	public String toString() {
+		return "requests=" + requests() + ", backendCalls=" + backendCalls() + ", saved=" + savedCalls();
+	}
+}
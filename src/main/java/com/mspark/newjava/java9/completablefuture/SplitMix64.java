@@ -0,0 +1,69 @@
+package com.mspark.newjava.java9.completablefuture;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 카운터 기반 SplitMix64 난수 생성기.
+ *
+ * n 번째 값은 mix(seed + n * GOLDEN_GAMMA) 로 정해지므로 같은 seed 로 같은 순서로 뽑으면 항상 같은 값이 나온다.
+ * 상태는 AtomicLong 카운터 하나이므로 여러 스레드가 공유해도 안전하며, 이 경우 값들의 집합은 같고 어느 스레드가
+ * 몇 번째 값을 받는지만 호출 순서에 따라 달라진다.
+ */
+class SplitMix64 {
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	private final long seed;
+	private final AtomicLong counter = new AtomicLong();
+
+	SplitMix64(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * seed 를 지정하지 않은 실행마다 다른 생성기
+	 */
+	static SplitMix64 unseeded() {
+		return new SplitMix64(mix(System.nanoTime() ^ Thread.currentThread().getId()));
+	}
+
+	long seed() {
+		return seed;
+	}
+
+	long nextLong() {
+		return mix(seed + counter.incrementAndGet() * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * [0, 1)
+	 */
+	double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * [0, bound)
+	 */
+	int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive: " + bound);
+		}
+		return (int) (((nextLong() >>> 33) * bound) >>> 31);
+	}
+
+	/**
+	 * 표준 정규분포. Box-Muller 변환으로 값 두개를 사용한다.
+	 */
+	double nextGaussian() {
+		double u1 = 1 - nextDouble();
+		double u2 = nextDouble();
+		return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+	}
+
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,182 @@
+package com.mspark.newjava.java9.optional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 한번 만들고 계속 조회하는 불변 이름 집합.
+ *
+ * lookUpName() 처럼 호출마다 List.of(...) 를 만들고 contains() 로 선형 탐색하는 대신,
+ * 이름을 2배 이상 크기의 open addressing(linear probing) 테이블에 넣어두고 해시로 찾는다.
+ * 슬롯마다 해시값과 Optional 을 미리 만들어 두므로 조회할 때 equals() 는 해시가 같은 경우에만 호출되고 Optional 을 새로 만들지 않는다.
+ *
+ * 대부분의 조회가 실패하는 경우에는 withBloomFilter() 로 앞에 Bloom filter 를 둘 수 있다.
+ * 비트 배열이 테이블보다 훨씬 작아 캐시에 머무르므로, 테이블이 클 때 실패하는 조회의 대부분을 테이블에 접근하지 않고 걸러낸다.
+ */
+final class NameIndex {
+	private final String[] names;
+	private final int[] hashes;
+	private final Optional<String>[] found;
+	private final int mask;
+	private final int size;
+	private final BloomFilter bloomFilter;
+
+	private NameIndex(String[] names, int[] hashes, Optional<String>[] found, int size, BloomFilter bloomFilter) {
+		this.names = names;
+		this.hashes = hashes;
+		this.found = found;
+		this.mask = names.length - 1;
+		this.size = size;
+		this.bloomFilter = bloomFilter;
+	}
+
+	static NameIndex of(String... names) {
+		return of(List.of(names));
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static NameIndex of(Collection<String> names) {
+		int capacity = Integer.highestOneBit(Math.max(2, names.size()) * 2 - 1) << 1;
+		String[] table = new String[capacity];
+		int[] hashes = new int[capacity];
+		Optional<String>[] found = new Optional[capacity];
+		int size = 0;
+		for (String name : names) {
+			if (name == null) {
+				throw new NullPointerException("name");
+			}
+			int hash = spread(name.hashCode());
+			int slot = hash & (capacity - 1);
+			while (table[slot] != null && !(hashes[slot] == hash && table[slot].equals(name))) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			if (table[slot] == null) {
+				table[slot] = name;
+				hashes[slot] = hash;
+				found[slot] = Optional.of(name);
+				size++;
+			}
+		}
+		return new NameIndex(table, hashes, found, size, null);
+	}
+
+	/**
+	 * 이름당 bitsPerName 비트의 Bloom filter 를 앞에 둔 같은 index. 오탐률은 대략 0.6185^bitsPerName 이다. (10 비트이면 약 1%)
+	 */
+	NameIndex withBloomFilter(int bitsPerName) {
+		BloomFilter filter = new BloomFilter(size, bitsPerName);
+		for (int slot = 0; slot < names.length; slot++) {
+			if (names[slot] != null) {
+				filter.add(hashes[slot]);
+			}
+		}
+		return new NameIndex(names, hashes, found, size, filter);
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean contains(String name) {
+		return slotOf(name) >= 0;
+	}
+
+	/**
+	 * 저장된 이름의 Optional. 미리 만들어둔 객체를 돌려주므로 할당이 없다.
+	 */
+	Optional<String> lookUp(String name) {
+		int slot = slotOf(name);
+		return slot < 0 ? Optional.empty() : found[slot];
+	}
+
+	/**
+	 * 조회에 성공한 이름만 입력 순서대로 돌려준다. 요소마다 Optional 을 만들지 않는다.
+	 */
+	List<String> hits(Collection<String> candidates) {
+		List<String> hits = new ArrayList<>();
+		forEachHit(candidates, hits::add);
+		return hits;
+	}
+
+	Stream<String> hits(Stream<String> candidates) {
+		return candidates.filter(this::contains);
+	}
+
+	void forEachHit(Iterable<String> candidates, Consumer<? super String> action) {
+		for (String candidate : candidates) {
+			int slot = slotOf(candidate);
+			if (slot >= 0) {
+				action.accept(names[slot]);
+			}
+		}
+	}
+
+	private int slotOf(String name) {
+		if (name == null) {
+			return -1;
+		}
+		int hash = spread(name.hashCode());
+		if (bloomFilter != null && !bloomFilter.mightContain(hash)) {
+			return -1;
+		}
+		for (int slot = hash & mask; names[slot] != null; slot = (slot + 1) & mask) {
+			if (hashes[slot] == hash && names[slot].equals(name)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	private static int spread(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * 하나의 32 비트 해시에서 double hashing 으로 k 개의 비트 위치를 만든다.
+	 */
+	private static final class BloomFilter {
+		private final long[] bits;
+		private final int bitMask;
+		private final int hashCount;
+
+		BloomFilter(int expected, int bitsPerName) {
+			if (bitsPerName < 1) {
+				throw new IllegalArgumentException("bitsPerName must be positive: " + bitsPerName);
+			}
+			long wanted = Math.max(64L, (long) expected * bitsPerName);
+			int bitCount = (int) Math.min(1L << 30, Long.highestOneBit(wanted - 1) << 1);
+			this.bits = new long[bitCount >>> 6];
+			this.bitMask = bitCount - 1;
+			this.hashCount = Math.max(1, (int) Math.round(bitsPerName * Math.log(2)));
+		}
+
+		void add(int hash) {
+			int second = secondHash(hash);
+			for (int i = 0; i < hashCount; i++) {
+				int bit = (hash + i * second) & bitMask;
+				bits[bit >>> 6] |= 1L << bit;
+			}
+		}
+
+		boolean mightContain(int hash) {
+			int second = secondHash(hash);
+			for (int i = 0; i < hashCount; i++) {
+				int bit = (hash + i * second) & bitMask;
+				if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static int secondHash(int hash) {
+			int second = Integer.rotateLeft(hash, 16) * 0x85EBCA6B;
+			return (second ^ (second >>> 13)) | 1;
+		}
+	}
+}
@@ -1,12 +1,21 @@
 package com.mspark.newjava.java9.optional;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.stream.Collectors.*;
 
 public class OptionalImprovements {
 
+	/**
+	 * 조회할 이름 집합은 한번만 만들어 두고 재사용한다.
+	 */
+	private static final NameIndex KNOWN_NAMES = NameIndex.of("1", "5");
 	
 	public static void main(String[] args) {
 		OptionalImprovements oi = new OptionalImprovements();
@@ -46,6 +55,12 @@ public class OptionalImprovements {
 		
 		System.out.println(lookedUpNames_in_java9_way);
 		
+		/**
+		 * 조회에 성공한 이름만 필요하다면 요소마다 Optional 을 만들 필요가 없다.
+		 */
+		List<String> lookedUpNames_by_batch = KNOWN_NAMES.hits(names);
+		
+		System.out.println(lookedUpNames_by_batch);
 	}
 	
 	/**
@@ -53,12 +68,7 @@ public class OptionalImprovements {
 	 * @return
 	 */
 	private Optional<String> lookUpName(String name){
-		List<String> names = List.of("1","5");
-		if(names.contains(name)) {
-			return Optional.of(name);
-		}else {
-			return Optional.empty();
-		}
+		return KNOWN_NAMES.lookUp(name);
 	}
 	
 	
@@ -124,6 +134,24 @@ public class OptionalImprovements {
 		Optional<String> lookedUpNameOptional = nameOptional.or(() -> lookUpName3("aa"));
 		
 		lookedUpNameOptional.ifPresent(System.out::println);
+		
+		/**
+		 * 실제로는 각 단계가 로컬 Map, 느린 캐시, 백엔드 처럼 서로 다른 저장소인 경우가 많다.
+		 * ResolverChain 은 같은 순서의 조회를 비동기로 수행하면서, 느린 단계는 deadline 이후 다음 단계와 경쟁시키고,
+		 * 값이 없다는 응답은 단계별로 기억하며, 아래 단계에서 찾은 값을 위 단계에 채워 넣는다.
+		 */
+		Map<String, String> localNames = new ConcurrentHashMap<>();
+		ResolverChain<String, String> resolverChain = new ResolverChain<>(List.of(
+				ResolverTier.sync("local", key -> Optional.ofNullable(localNames.get(key)), localNames::put),
+				new ResolverTier<String, String>("cache",
+						key -> CompletableFuture.supplyAsync(() -> lookUpName(key),
+								CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS)),
+						Duration.ofMillis(50), Duration.ofSeconds(30), null),
+				ResolverTier.of("backend", key -> CompletableFuture.supplyAsync(() -> Optional.of(key.toUpperCase())))));
+		
+		resolverChain.resolve("aa").thenAccept(resolved -> resolved.ifPresent(System.out::println)).join();
+		resolverChain.resolve("aa").thenAccept(resolved -> resolved.ifPresent(System.out::println)).join();
+		resolverChain.metrics().forEach(System.out::println);
 	}
 	
 	private String lookUpName2(String name){
@@ -131,11 +159,6 @@ public class OptionalImprovements {
 	}
 	
 	private Optional<String> lookUpName3(String name){
-		List<String> names = List.of("1","5");
-		if(names.contains(name)) {
-			return Optional.of(name);
-		}else {
-			return Optional.empty();
-		}
+		return KNOWN_NAMES.lookUp(name);
 	}
 }
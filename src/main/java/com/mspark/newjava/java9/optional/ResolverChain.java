@@ -0,0 +1,118 @@
+package com.mspark.newjava.java9.optional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * lookUpName(name).or(() -> lookUpName3(name)) 를 여러 저장소에 대해 비동기로 수행한다.
+ *
+ * tier 는 순서대로 조회하며, 앞 tier 가 값을 찾으면 그 값을 돌려주고 찾지 못하거나 실패하면 다음 tier 로 넘어간다.
+ * raceAfter 가 지정된 tier 가 그 시간 안에 끝나지 않으면 다음 tier 를 함께 시작하고, 두 쪽 중 먼저 값을 찾은 쪽을 돌려준다.
+ * 앞 tier 가 늦게라도 값을 찾으면 그 값을 사용하며, 양쪽 모두 찾지 못한 경우에만 빈 Optional 이 된다.
+ * 부정 캐시에 들어있는 tier 는 조회하지 않고 건너뛴다.
+ *
+ * 값을 찾으면 그보다 앞에 있는 tier 중 promoter 가 있는 tier 에 채워 넣어 다음 조회가 앞에서 끝나게 한다.
+ * 조회의 실패는 값이 없는 것과 같이 취급하여 다음 tier 로 넘어가며, 실패 횟수는 TierMetrics.errors() 로 알 수 있다.
+ */
+final class ResolverChain<K, V> {
+	private final List<ResolverTier<K, V>> tiers;
+
+	ResolverChain(List<ResolverTier<K, V>> tiers) {
+		if (tiers.isEmpty()) {
+			throw new IllegalArgumentException("At least one tier is required");
+		}
+		this.tiers = new ArrayList<>(tiers);
+	}
+
+	CompletableFuture<Optional<V>> resolve(K key) {
+		return resolveFrom(0, key).thenApply(resolution -> {
+			if (resolution == null) {
+				return Optional.<V>empty();
+			}
+			for (int i = 0; i < resolution.tier; i++) {
+				ResolverTier<K, V> tier = tiers.get(i);
+				if (tier.canPromote()) {
+					tier.promote(key, resolution.value);
+				}
+			}
+			return Optional.of(resolution.value);
+		});
+	}
+
+	List<TierMetrics> metrics() {
+		List<TierMetrics> metrics = new ArrayList<>(tiers.size());
+		for (ResolverTier<K, V> tier : tiers) {
+			metrics.add(tier.metrics());
+		}
+		return metrics;
+	}
+
+	/**
+	 * index 번째 tier 부터 조회한다. 찾지 못하면 null 로 완료된다.
+	 */
+	private CompletableFuture<Resolution<V>> resolveFrom(int index, K key) {
+		if (index == tiers.size()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		ResolverTier<K, V> tier = tiers.get(index);
+		if (tier.isKnownMiss(key)) {
+			return resolveFrom(index + 1, key);
+		}
+
+		CompletableFuture<Resolution<V>> result = new CompletableFuture<>();
+		AtomicReference<CompletableFuture<Resolution<V>>> next = new AtomicReference<>();
+		CompletableFuture<Optional<V>> own = tier.lookUp(key);
+
+		own.whenComplete((value, error) -> {
+			if (error == null && value != null && value.isPresent()) {
+				result.complete(new Resolution<>(index, value.get()));
+			} else {
+				startNext(next, index, key).whenComplete((resolution, nextError) -> result.complete(resolution));
+			}
+		});
+
+		if (tier.races() && !own.isDone()) {
+			CompletableFuture.delayedExecutor(tier.raceAfterNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+				if (!own.isDone() && !result.isDone()) {
+					tier.metrics().recordRaced();
+					startNext(next, index, key).thenAccept(resolution -> {
+						if (resolution != null) {
+							result.complete(resolution);
+						}
+					});
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * 다음 tier 의 조회는 deadline 과 앞 tier 의 실패 중 먼저 일어난 쪽에서 한번만 시작한다.
+	 */
+	private CompletableFuture<Resolution<V>> startNext(AtomicReference<CompletableFuture<Resolution<V>>> next, int index, K key) {
+		CompletableFuture<Resolution<V>> started = next.get();
+		if (started != null) {
+			return started;
+		}
+		CompletableFuture<Resolution<V>> placeholder = new CompletableFuture<>();
+		if (!next.compareAndSet(null, placeholder)) {
+			return next.get();
+		}
+		resolveFrom(index + 1, key).whenComplete((resolution, error) -> placeholder.complete(error == null ? resolution : null));
+		return placeholder;
+	}
+
+	private static final class Resolution<V> {
+		private final int tier;
+		private final V value;
+
+		Resolution(int tier, V value) {
+			this.tier = tier;
+			this.value = value;
+		}
+	}
+}
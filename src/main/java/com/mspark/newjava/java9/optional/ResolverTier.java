@@ -0,0 +1,166 @@
+package com.mspark.newjava.java9.optional;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * ResolverChain 의 한 단계. 로컬 Map, 느린 캐시, 백엔드 처럼 서로 다른 저장소 하나를 나타낸다.
+ *
+ * raceAfter: 이 시간 안에 조회가 끝나지 않으면 다음 tier 를 함께 시작한다. null 이면 끝날 때 까지 기다린다.
+ * negativeTtl: 값이 없다고 응답한 키를 이 시간 동안 기억하고 조회하지 않는다. null 이면 기억하지 않는다.
+ * promoter: 아래 tier 에서 찾은 값을 이 tier 에 채워 넣는 함수. null 이면 채우지 않는다.
+ */
+final class ResolverTier<K, V> {
+	private static final int MAX_NEGATIVE_ENTRIES = 10_000;
+
+	private final String name;
+	private final Function<? super K, ? extends CompletableFuture<Optional<V>>> lookup;
+	private final long raceAfterNanos;
+	private final long negativeTtlNanos;
+	private final BiConsumer<? super K, ? super V> promoter;
+	private final ConcurrentHashMap<K, Long> negativeExpiry = new ConcurrentHashMap<>();
+	private final AtomicBoolean purging = new AtomicBoolean();
+	private final TierMetrics metrics;
+
+	ResolverTier(String name, Function<? super K, ? extends CompletableFuture<Optional<V>>> lookup,
+				 Duration raceAfter, Duration negativeTtl, BiConsumer<? super K, ? super V> promoter) {
+		this.name = name;
+		this.lookup = lookup;
+		this.raceAfterNanos = raceAfter == null ? -1 : raceAfter.toNanos();
+		this.negativeTtlNanos = negativeTtl == null ? -1 : negativeTtl.toNanos();
+		this.promoter = promoter;
+		this.metrics = new TierMetrics(name);
+	}
+
+	/**
+	 * 기다리기만 하고, 부정 캐시와 채워 넣기를 하지 않는 tier
+	 */
+	static <K, V> ResolverTier<K, V> of(String name, Function<? super K, ? extends CompletableFuture<Optional<V>>> lookup) {
+		return new ResolverTier<>(name, lookup, null, null, null);
+	}
+
+	/**
+	 * 호출한 스레드에서 바로 끝나는 조회 (예: 로컬 Map) 를 tier 로 만든다.
+	 */
+	static <K, V> ResolverTier<K, V> sync(String name, Function<? super K, Optional<V>> lookup,
+										  BiConsumer<? super K, ? super V> promoter) {
+		return new ResolverTier<K, V>(name, key -> CompletableFuture.completedFuture(lookup.apply(key)), null, null, promoter);
+	}
+
+	String name() {
+		return name;
+	}
+
+	TierMetrics metrics() {
+		return metrics;
+	}
+
+	boolean races() {
+		return raceAfterNanos >= 0;
+	}
+
+	long raceAfterNanos() {
+		return raceAfterNanos;
+	}
+
+	boolean canPromote() {
+		return promoter != null;
+	}
+
+	/**
+	 * 조회 함수가 예외를 던지거나 null 을 돌려주면 실패한 future 로 바꾼다.
+	 */
+	CompletableFuture<Optional<V>> lookUp(K key) {
+		long start = System.nanoTime();
+		CompletableFuture<Optional<V>> result;
+		try {
+			result = lookup.apply(key);
+			if (result == null) {
+				result = failed(new NullPointerException(name + " returned null"));
+			}
+		} catch (RuntimeException exception) {
+			result = failed(exception);
+		}
+		return result.whenComplete((value, error) -> {
+			long latency = System.nanoTime() - start;
+			if (error != null || value == null) {
+				metrics.recordError(latency);
+			} else {
+				metrics.recordLookup(latency, value.isPresent());
+				if (!value.isPresent()) {
+					rememberMiss(key);
+				}
+			}
+		});
+	}
+
+	boolean isKnownMiss(K key) {
+		if (negativeTtlNanos < 0) {
+			return false;
+		}
+		Long expiry = negativeExpiry.get(key);
+		if (expiry == null) {
+			return false;
+		}
+		if (System.nanoTime() - expiry >= 0) {
+			negativeExpiry.remove(key, expiry);
+			return false;
+		}
+		metrics.recordNegativeCacheHit();
+		return true;
+	}
+
+	void promote(K key, V value) {
+		negativeExpiry.remove(key);
+		promoter.accept(key, value);
+		metrics.recordPromotion();
+	}
+
+	/**
+	 * 부정 캐시는 약 MAX_NEGATIVE_ENTRIES 개 까지만 유지한다.
+	 * 만료된 항목은 같은 키를 다시 조회할 때만 지워지므로, 가득 차면 purge() 로 정리한 뒤 새 키를 기억한다.
+	 */
+	private void rememberMiss(K key) {
+		if (negativeTtlNanos < 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (negativeExpiry.size() >= MAX_NEGATIVE_ENTRIES) {
+			purge(now);
+		}
+		negativeExpiry.put(key, now + negativeTtlNanos);
+	}
+
+	/**
+	 * 만료된 항목을 모두 지우고, 그래도 가득 차 있으면 살아있는 항목을 임의로 지워서 1/8 의 여유를 만든다.
+	 * 한번에 한 스레드만 정리하며, 그동안 다른 스레드가 추가하는 만큼은 잠시 한도를 넘을 수 있다.
+	 */
+	private void purge(long now) {
+		if (!purging.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			negativeExpiry.values().removeIf(expiry -> now - expiry >= 0);
+			int target = MAX_NEGATIVE_ENTRIES - MAX_NEGATIVE_ENTRIES / 8;
+			Iterator<K> keys = negativeExpiry.keySet().iterator();
+			while (negativeExpiry.size() > target && keys.hasNext()) {
+				keys.next();
+				keys.remove();
+			}
+		} finally {
+			purging.set(false);
+		}
+	}
+
+	private static <T> CompletableFuture<T> failed(Throwable error) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(error);
+		return future;
+	}
+}
@@ -0,0 +1,139 @@
+package com.mspark.newjava.java9.optional;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ResolverTier 하나의 조회 통계.
+ *
+ * 지연시간은 2의 거듭제곱 나노초 구간별 건수로 센다. 기록은 lock 없이 AtomicLongArray 의 증가 한번이며,
+ * 백분위 값은 해당 구간의 상한이므로 실제 값보다 최대 2배까지 크게 나올 수 있다.
+ */
+final class TierMetrics {
+	private static final int BUCKETS = 64;
+
+	private final String name;
+	private final LongAdder lookups = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder negativeCacheHits = new LongAdder();
+	private final LongAdder raced = new LongAdder();
+	private final LongAdder promotions = new LongAdder();
+	private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKETS);
+
+	TierMetrics(String name) {
+		this.name = name;
+	}
+
+	String name() {
+		return name;
+	}
+
+	long lookups() {
+		return lookups.sum();
+	}
+
+	long hits() {
+		return hits.sum();
+	}
+
+	long misses() {
+		return misses.sum();
+	}
+
+	long errors() {
+		return errors.sum();
+	}
+
+	/**
+	 * 부정 캐시 덕분에 조회하지 않고 건너뛴 횟수
+	 */
+	long negativeCacheHits() {
+		return negativeCacheHits.sum();
+	}
+
+	/**
+	 * 이 tier 가 deadline 안에 끝나지 않아 다음 tier 를 함께 시작한 횟수
+	 */
+	long raced() {
+		return raced.sum();
+	}
+
+	/**
+	 * 아래 tier 에서 찾은 값을 이 tier 에 채워 넣은 횟수
+	 */
+	long promotions() {
+		return promotions.sum();
+	}
+
+	double hitRate() {
+		long lookups = lookups();
+		return lookups == 0 ? 0 : (double) hits() / lookups;
+	}
+
+	/**
+	 * @param percentile 0 ~ 100
+	 * @return 기록이 없으면 0
+	 */
+	double latencyPercentileMillis(double percentile) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = latencyBuckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return upperBoundNanos(i) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+			}
+		}
+		return upperBoundNanos(BUCKETS - 1) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	void recordLookup(long latencyNanos, boolean hit) {
+		lookups.increment();
+		(hit ? hits : misses).increment();
+		recordLatency(latencyNanos);
+	}
+
+	void recordError(long latencyNanos) {
+		lookups.increment();
+		errors.increment();
+		recordLatency(latencyNanos);
+	}
+
+	void recordNegativeCacheHit() {
+		negativeCacheHits.increment();
+	}
+
+	void recordRaced() {
+		raced.increment();
+	}
+
+	void recordPromotion() {
+		promotions.increment();
+	}
+
+	private void recordLatency(long latencyNanos) {
+		latencyBuckets.incrementAndGet(Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(Math.max(0, latencyNanos))));
+	}
+
+	private static long upperBoundNanos(int bucket) {
+		return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s [lookups=%d, hitRate=%.2f, errors=%d, negativeCacheHits=%d, raced=%d, promotions=%d, p50=%.3fms, p99=%.3fms]",
+							 name, lookups(), hitRate(), errors(), negativeCacheHits(), raced(), promotions(),
+							 latencyPercentileMillis(50), latencyPercentileMillis(99));
+	}
+}
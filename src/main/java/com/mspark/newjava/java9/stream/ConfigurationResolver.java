@@ -0,0 +1,192 @@
+package com.mspark.newjava.java9.stream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 설정 키의 우선순위 목록을 미리 등록해두고, 불변 snapshot 에서 lock 없이 읽는다.
+ *
+ * Stream.of("app.config", "app.home", "user.home").flatMap(key -> Stream.ofNullable(System.getProperty(key)))
+ * 는 호출마다 Stream 을 만들고 키마다 Properties 를 조회한다.
+ * chain() 으로 키 목록을 한번 등록하면 결과는 snapshot 의 배열에 미리 계산되어 있어, 읽기는 volatile 읽기와 배열 조회 뿐이다.
+ *
+ * 각 키는 환경변수가 system property 보다 우선한다. 환경변수 이름은 키를 대문자로 바꾸고 '.' 을 '_' 로 바꾼 것이다. (app.home -> APP_HOME)
+ * snapshot 은 refresh() 를 호출하거나 watch() 로 주기적으로 확인했을 때, 등록된 키의 값이 바뀐 경우에만 다시 만든다.
+ */
+final class ConfigurationResolver {
+	private final Function<String, String> properties;
+	private final Function<String, String> environment;
+	private final List<String[]> chains = new ArrayList<>();
+	private final LongAdder refreshFailures = new LongAdder();
+	private volatile Snapshot snapshot = new Snapshot(new HashMap<>(), new String[0]);
+
+	ConfigurationResolver(Function<String, String> properties, Function<String, String> environment) {
+		this.properties = properties;
+		this.environment = environment;
+	}
+
+	static ConfigurationResolver system() {
+		return new ConfigurationResolver(System::getProperty, System::getenv);
+	}
+
+	/**
+	 * 앞의 키 부터 값이 있는 첫번째 키를 사용하는 chain 을 등록한다.
+	 */
+	synchronized Chain chain(String... keys) {
+		if (keys.length == 0) {
+			throw new IllegalArgumentException("At least one key is required");
+		}
+		chains.add(keys.clone());
+		rebuild(true);
+		return new Chain(chains.size() - 1, keys);
+	}
+
+	/**
+	 * lock 없이 현재 snapshot 에서 읽는다.
+	 */
+	Optional<String> resolve(Chain chain) {
+		return Optional.ofNullable(get(chain));
+	}
+
+	/**
+	 * @return 값이 없으면 null
+	 */
+	String get(Chain chain) {
+		return snapshot.values[chain.index];
+	}
+
+	/**
+	 * 등록된 키들의 현재 값을 다시 읽고, 바뀐 값이 있을 때만 snapshot 을 교체한다.
+	 *
+	 * @return snapshot 을 교체했으면 true
+	 */
+	synchronized boolean refresh() {
+		return rebuild(false);
+	}
+
+	/**
+	 * period 마다 refresh() 를 실행한다. 반환된 ScheduledFuture 를 cancel 하면 멈춘다.
+	 * 실패는 refreshFailures() 로만 확인할 수 있다.
+	 */
+	ScheduledFuture<?> watch(Duration period) {
+		return watch(period, failure -> { });
+	}
+
+	/**
+	 * period 마다 refresh() 를 실행하고, 실패하면 refreshFailures() 를 증가시킨 뒤 onFailure 에 예외를 넘긴다.
+	 * scheduleWithFixedDelay 는 작업이 예외를 던지면 이후 실행을 조용히 멈추므로 예외를 밖으로 던지지 않으며,
+	 * 실패한 refresh() 는 snapshot 을 교체하지 않으므로 마지막으로 성공한 snapshot 이 유지된다.
+	 */
+	ScheduledFuture<?> watch(Duration period, Consumer<? super RuntimeException> onFailure) {
+		long nanos = period.toNanos();
+		return Watcher.SCHEDULER.scheduleWithFixedDelay(() -> {
+			try {
+				refresh();
+			} catch (RuntimeException failure) {
+				refreshFailures.increment();
+				try {
+					onFailure.accept(failure);
+				} catch (RuntimeException ignored) {
+					// onFailure 의 예외로 watch 가 멈추지 않도록 한다.
+				}
+			}
+		}, nanos, nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * watch() 에서 실패한 refresh() 의 횟수
+	 */
+	long refreshFailures() {
+		return refreshFailures.sum();
+	}
+
+	private boolean rebuild(boolean force) {
+		Set<String> keys = new LinkedHashSet<>();
+		for (String[] chain : chains) {
+			keys.addAll(Arrays.asList(chain));
+		}
+		Map<String, String> raw = new HashMap<>();
+		for (String key : keys) {
+			String value = lookUp(key);
+			if (value != null) {
+				raw.put(key, value);
+			}
+		}
+		if (!force && raw.equals(snapshot.raw)) {
+			return false;
+		}
+
+		String[] values = new String[chains.size()];
+		for (int i = 0; i < values.length; i++) {
+			for (String key : chains.get(i)) {
+				String value = raw.get(key);
+				if (value != null) {
+					values[i] = value;
+					break;
+				}
+			}
+		}
+		snapshot = new Snapshot(raw, values);
+		return true;
+	}
+
+	private String lookUp(String key) {
+		String overridden = environment.apply(key.toUpperCase(Locale.ROOT).replace('.', '_'));
+		return overridden != null ? overridden : properties.apply(key);
+	}
+
+	/**
+	 * 등록된 키 목록. ConfigurationResolver 의 snapshot 에서 값을 찾는 인덱스를 가진다.
+	 */
+	static final class Chain {
+		private final int index;
+		private final List<String> keys;
+
+		private Chain(int index, String[] keys) {
+			this.index = index;
+			this.keys = List.of(keys);
+		}
+
+		List<String> keys() {
+			return keys;
+		}
+
+		@Override
+		public String toString() {
+			return "Chain " + keys;
+		}
+	}
+
+	private static final class Snapshot {
+		private final Map<String, String> raw;
+		private final String[] values;
+
+		Snapshot(Map<String, String> raw, String[] values) {
+			this.raw = raw;
+			this.values = values;
+		}
+	}
+
+	private static final class Watcher {
+		private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "configuration-watcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
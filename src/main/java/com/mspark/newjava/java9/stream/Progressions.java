@@ -0,0 +1,286 @@
+package com.mspark.newjava.java9.stream;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 시작값, 증가값, 끝값(미포함)으로 정해지는 등차수열 스트림.
+ *
+ * IntStream.iterate(3, x -> x < 16, x -> x + 3) 의 Spliterator 는 크기를 모르고 앞에서부터 일부를 배열로 복사하며 나누므로
+ * 병렬 스트림에서도 사실상 순차로 실행된다. range(3, 16).filter(x -> x % 3 == 0) 은 잘 나뉘지만 3배의 요소를 검사한다.
+ * 등차수열은 i 번째 값이 start + i * step 이므로 요소 수를 미리 알 수 있고, 인덱스 범위를 반으로 나누는 것만으로 O(1) 에 분할된다.
+ * 따라서 여기서 만드는 Spliterator 는 SIZED, SUBSIZED 이다.
+ */
+final class Progressions {
+	private static final int DISTINCT_SIZED = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED
+			| Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.DISTINCT;
+
+	private Progressions() {
+	}
+
+	/**
+	 * start 부터 step 씩 증가하며 endExclusive 를 넘지 않는 int 스트림. step 이 음수이면 감소한다.
+	 */
+	static IntStream ints(int start, int endExclusive, int step) {
+		return StreamSupport.intStream(new IntProgression(start, step, 0, count(start, endExclusive, step)), false);
+	}
+
+	static LongStream longs(long start, long endExclusive, long step) {
+		return StreamSupport.longStream(new LongProgression(start, step, 0, count(start, endExclusive, step)), false);
+	}
+
+	/**
+	 * i 번째 값을 start + i * step 으로 계산하므로, step 을 반복해서 더하는 iterate() 와 달리 오차가 누적되지 않는다.
+	 * 요소 수는 (endExclusive - start) / step 의 올림이지만 나눗셈의 반올림 오차로 하나 많거나 적을 수 있으므로,
+	 * 실제로 만들어질 마지막 값이 endExclusive 를 넘지 않도록 보정한다. (doubles(9.5, 17.6, 0.1) 은 17.6 을 포함하지 않는다)
+	 */
+	static DoubleStream doubles(double start, double endExclusive, double step) {
+		if (step == 0 || Double.isNaN(step) || Double.isInfinite(step)) {
+			throw new IllegalArgumentException("step must be finite and non-zero: " + step);
+		}
+		if (Double.isNaN(start) || Double.isInfinite(start) || Double.isNaN(endExclusive)) {
+			throw new IllegalArgumentException("start must be finite and end must not be NaN: " + start + ", " + endExclusive);
+		}
+		double steps = Math.ceil((endExclusive - start) / step);
+		if (steps > Long.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many elements: " + steps);
+		}
+		long count = steps > 0 ? (long) steps : 0;
+		while (count > 0 && reached(start + (count - 1) * step, endExclusive, step)) {
+			count--;
+		}
+		while (count < Long.MAX_VALUE && !reached(start + count * step, endExclusive, step)) {
+			count++;
+		}
+		return StreamSupport.doubleStream(new DoubleProgression(start, step, 0, count), false);
+	}
+
+	private static boolean reached(double value, double endExclusive, double step) {
+		return step > 0 ? value >= endExclusive : value <= endExclusive;
+	}
+
+	/**
+	 * [from, to) 를 batchSize 크기로 나눈 각 배치의 시작 오프셋. 마지막 배치는 batchSize 보다 작을 수 있다.
+	 */
+	static LongStream batchStarts(long from, long to, long batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+		}
+		return longs(from, to, batchSize);
+	}
+
+	/**
+	 * [from, to) 를 lanes 개의 작업자가 번갈아 처리할 때 lane 번째 작업자가 맡는 오프셋 (from + lane, from + lane + lanes, ...)
+	 */
+	static LongStream stride(long from, long to, int lane, int lanes) {
+		if (lanes <= 0 || lane < 0 || lane >= lanes) {
+			throw new IllegalArgumentException("lane " + lane + " of " + lanes);
+		}
+		return from + lane >= to ? LongStream.empty() : longs(from + lane, to, lanes);
+	}
+
+	private static long count(long start, long endExclusive, long step) {
+		if (step == 0) {
+			throw new IllegalArgumentException("step must be non-zero");
+		}
+		if (step > 0 ? endExclusive <= start : endExclusive >= start) {
+			return 0;
+		}
+		// 차이와 증가값의 절대값은 long 범위를 넘을 수 있으므로 unsigned 로 계산한다.
+		long distance = step > 0 ? endExclusive - start : start - endExclusive;
+		long magnitude = step > 0 ? step : -step;
+		long count = Long.divideUnsigned(distance - 1, magnitude) + 1;
+		if (count < 0) {
+			throw new IllegalArgumentException("Too many elements: " + Long.toUnsignedString(count));
+		}
+		return count;
+	}
+
+	private static int characteristics(boolean ascending) {
+		return DISTINCT_SIZED | (ascending ? Spliterator.SORTED : 0);
+	}
+
+	private static final class IntProgression implements Spliterator.OfInt {
+		private final int start;
+		private final int step;
+		private long index;
+		private final long fence;
+
+		IntProgression(int start, int step, long index, long fence) {
+			this.start = start;
+			this.step = step;
+			this.index = index;
+			this.fence = fence;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (index >= fence) {
+				return false;
+			}
+			action.accept((int) (start + index++ * step));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			long current = index;
+			index = fence;
+			for (; current < fence; current++) {
+				action.accept((int) (start + current * step));
+			}
+		}
+
+		@Override
+		public Spliterator.OfInt trySplit() {
+			long middle = (index + fence) >>> 1;
+			if (middle <= index) {
+				return null;
+			}
+			IntProgression prefix = new IntProgression(start, step, index, middle);
+			index = middle;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return Progressions.characteristics(step > 0);
+		}
+
+		@Override
+		public Comparator<? super Integer> getComparator() {
+			if (step > 0) {
+				return null;
+			}
+			throw new IllegalStateException();
+		}
+	}
+
+	private static final class LongProgression implements Spliterator.OfLong {
+		private final long start;
+		private final long step;
+		private long index;
+		private final long fence;
+
+		LongProgression(long start, long step, long index, long fence) {
+			this.start = start;
+			this.step = step;
+			this.index = index;
+			this.fence = fence;
+		}
+
+		@Override
+		public boolean tryAdvance(LongConsumer action) {
+			if (index >= fence) {
+				return false;
+			}
+			action.accept(start + index++ * step);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(LongConsumer action) {
+			long current = index;
+			index = fence;
+			for (; current < fence; current++) {
+				action.accept(start + current * step);
+			}
+		}
+
+		@Override
+		public Spliterator.OfLong trySplit() {
+			long middle = (index + fence) >>> 1;
+			if (middle <= index) {
+				return null;
+			}
+			LongProgression prefix = new LongProgression(start, step, index, middle);
+			index = middle;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return Progressions.characteristics(step > 0);
+		}
+
+		@Override
+		public Comparator<? super Long> getComparator() {
+			if (step > 0) {
+				return null;
+			}
+			throw new IllegalStateException();
+		}
+	}
+
+	private static final class DoubleProgression implements Spliterator.OfDouble {
+		private final double start;
+		private final double step;
+		private long index;
+		private final long fence;
+
+		DoubleProgression(double start, double step, long index, long fence) {
+			this.start = start;
+			this.step = step;
+			this.index = index;
+			this.fence = fence;
+		}
+
+		@Override
+		public boolean tryAdvance(DoubleConsumer action) {
+			if (index >= fence) {
+				return false;
+			}
+			action.accept(start + index++ * step);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(DoubleConsumer action) {
+			long current = index;
+			index = fence;
+			for (; current < fence; current++) {
+				action.accept(start + current * step);
+			}
+		}
+
+		@Override
+		public Spliterator.OfDouble trySplit() {
+			long middle = (index + fence) >>> 1;
+			if (middle <= index) {
+				return null;
+			}
+			DoubleProgression prefix = new DoubleProgression(start, step, index, middle);
+			index = middle;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			// 부동소수점 반올림으로 이웃한 값이 같아질 수 있으므로 DISTINCT, SORTED 는 보장하지 않는다.
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE
+					| Spliterator.NONNULL;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.mspark.newjava.java9.stream;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * 정렬된 RandomAccess 리스트와 primitive 배열에서 경계를 이진 탐색으로 찾아 잘라내는 유틸리티.
+ *
+ * dropWhile(n -> n < 100) 은 경계까지의 모든 요소를 차례로 검사하므로 O(n) 이다.
+ * 정렬되어 있다면 경계는 O(log n) 으로 찾을 수 있고, 그 뒤는 복사없이 subList() 나
+ * Arrays.stream(array, from, to) 로 돌려줄 수 있다. Arrays.stream 은 SIZED, SUBSIZED 스트림이므로 병렬로도 잘 나뉜다.
+ *
+ * 입력이 정렬되어 있지 않으면 결과는 정의되지 않는다.
+ */
+final class SortedSlices {
+
+	private SortedSlices() {
+	}
+
+	/**
+	 * key 이상인 첫 요소의 인덱스. 없으면 size()
+	 */
+	static <T> int lowerBound(List<? extends T> sorted, T key, Comparator<? super T> comparator) {
+		checkRandomAccess(sorted);
+		int low = 0;
+		int high = sorted.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (comparator.compare(sorted.get(middle), key) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * key 보다 큰 첫 요소의 인덱스. 없으면 size()
+	 */
+	static <T> int upperBound(List<? extends T> sorted, T key, Comparator<? super T> comparator) {
+		checkRandomAccess(sorted);
+		int low = 0;
+		int high = sorted.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (comparator.compare(sorted.get(middle), key) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	static <T extends Comparable<? super T>> int lowerBound(List<? extends T> sorted, T key) {
+		return lowerBound(sorted, key, Comparator.<T>naturalOrder());
+	}
+
+	static <T extends Comparable<? super T>> int upperBound(List<? extends T> sorted, T key) {
+		return upperBound(sorted, key, Comparator.<T>naturalOrder());
+	}
+
+	/**
+	 * key 이상인 요소들의 view. dropWhile(element -> element < key) 와 같은 요소를 담는다.
+	 */
+	static <T extends Comparable<? super T>> List<T> atLeast(List<T> sorted, T key) {
+		return sorted.subList(lowerBound(sorted, key), sorted.size());
+	}
+
+	/**
+	 * key 보다 작은 요소들의 view. takeWhile(element -> element < key) 와 같은 요소를 담는다.
+	 */
+	static <T extends Comparable<? super T>> List<T> lessThan(List<T> sorted, T key) {
+		return sorted.subList(0, lowerBound(sorted, key));
+	}
+
+	/**
+	 * fromInclusive 이상 toExclusive 미만인 요소들의 view
+	 */
+	static <T extends Comparable<? super T>> List<T> range(List<T> sorted, T fromInclusive, T toExclusive) {
+		int from = lowerBound(sorted, fromInclusive);
+		return sorted.subList(from, Math.max(from, lowerBound(sorted, toExclusive)));
+	}
+
+	static int lowerBound(int[] sorted, int key) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	static int upperBound(int[] sorted, int key) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] <= key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	static IntStream atLeast(int[] sorted, int key) {
+		return Arrays.stream(sorted, lowerBound(sorted, key), sorted.length);
+	}
+
+	static IntStream lessThan(int[] sorted, int key) {
+		return Arrays.stream(sorted, 0, lowerBound(sorted, key));
+	}
+
+	static IntStream range(int[] sorted, int fromInclusive, int toExclusive) {
+		int from = lowerBound(sorted, fromInclusive);
+		return Arrays.stream(sorted, from, Math.max(from, lowerBound(sorted, toExclusive)));
+	}
+
+	static int lowerBound(long[] sorted, long key) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	static int upperBound(long[] sorted, long key) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] <= key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	static LongStream atLeast(long[] sorted, long key) {
+		return Arrays.stream(sorted, lowerBound(sorted, key), sorted.length);
+	}
+
+	static LongStream lessThan(long[] sorted, long key) {
+		return Arrays.stream(sorted, 0, lowerBound(sorted, key));
+	}
+
+	static LongStream range(long[] sorted, long fromInclusive, long toExclusive) {
+		int from = lowerBound(sorted, fromInclusive);
+		return Arrays.stream(sorted, from, Math.max(from, lowerBound(sorted, toExclusive)));
+	}
+
+	private static void checkRandomAccess(List<?> list) {
+		if (!(list instanceof RandomAccess)) {
+			throw new IllegalArgumentException("Binary search requires a RandomAccess list: " + list.getClass().getName());
+		}
+	}
+}
@@ -39,6 +39,19 @@ public class StreamImprovements {
 				.orElseThrow(IllegalStateException::new);
 		
 		System.out.println(configurationDirectory_in_java9_way);
+		
+		/**
+		 * 요청마다 같은 키 목록을 조회한다면, 키 목록을 한번 등록해두고 미리 계산된 snapshot 에서 lock 없이 읽을 수 있다.
+		 * 값이 바뀌었을 수 있다면 refresh() 나 watch() 로 snapshot 을 다시 만든다.
+		 */
+		ConfigurationResolver configuration = ConfigurationResolver.system();
+		ConfigurationResolver.Chain configurationDirectory = configuration.chain("app.config", "app.home", "user.home");
+		
+		final String configurationDirectory_by_snapshot =
+				configuration.resolve(configurationDirectory)
+							 .orElseThrow(IllegalStateException::new);
+		
+		System.out.println(configurationDirectory_by_snapshot);
 	}
 	
 	/**
@@ -75,7 +88,16 @@ public class StreamImprovements {
 																	  .collect(Collectors.toList());
 		System.out.println(over100List_in_java9_way);
 		
+		/**
+		 * dropWhile() 도 경계까지의 요소는 모두 탐색한다. (Integer 를 꺼내 조건식을 실행한다)
+		 * 정렬되어 있다는 것을 알고 있다면 경계를 이진 탐색으로 O(log n) 에 찾고 복사없이 subList 로 돌려줄 수 있다.
+		 * primitive 배열이라면 boxing 없이 Arrays.stream(array, from, to) 로 돌려준다.
+		 */
+		List<Integer> over100List_by_binary_search = SortedSlices.atLeast(largeAmountNumberList, 100);
+		System.out.println(over100List_by_binary_search);
 		
+		int[] sortedAmounts = IntStream.range(1, 200).toArray();
+		System.out.println(SortedSlices.range(sortedAmounts, 100, 110).sum());
 	}
 	
 	private static void iterateImprove() {
@@ -99,6 +121,21 @@ public class StreamImprovements {
 		 */
 		IntStream.iterate(3,x -> x < 16,  x -> x + 3)
     	 		 .forEach(System.out::println);
+		
+		/**
+		 * iterate() 는 다음 값을 이전 값으로부터 구하므로 전체 크기를 알 수 없어 병렬 스트림에서 잘 나뉘지 않는다.
+		 * 등차수열은 크기를 미리 알 수 있으므로 SIZED 스트림으로 만들면 range() 처럼 균등하게 나뉘면서 filter 없이 필요한 값만 만든다.
+		 */
+		System.out.println(Progressions.ints(3, 16, 3)
+									   .parallel()
+									   .sum());
+		
+		/**
+		 * double 등차수열은 (끝 - 시작) / 증가값의 반올림 오차 때문에 요소 수를 단순히 올림하면 끝값이 포함될 수 있다.
+		 * 9.5 부터 0.1 씩 17.6 미만까지는 81 개이며 마지막 값은 17.6 보다 작아야 한다.
+		 */
+		double[] tenths = Progressions.doubles(9.5, 17.6, 0.1).toArray();
+		System.out.println(tenths.length + " " + tenths[tenths.length - 1]);
 	}
 	
 }
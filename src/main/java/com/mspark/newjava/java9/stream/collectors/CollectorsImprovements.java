@@ -1,16 +1,27 @@
 package com.mspark.newjava.java9.stream.collectors;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.stream.Collector;
 
 import static java.util.stream.Collectors.*;
 
 public class CollectorsImprovements {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		filteringCollectors();
+		materializedViews();
+		memoryMappedExpenses();
+		sketchCollectors();
 	}
 	
 	private static void filteringCollectors() {
@@ -33,8 +44,92 @@ public class CollectorsImprovements {
 		= expenses.stream()
 				  .collect(groupingBy(Expense::getYear, 
 						  filtering(expense -> expense.getAmount() >1_000, toList())));
+		
+		/**
+		 * 건수와 합계만 필요하다면 Expense 객체 목록을 만들 필요가 없다.
+		 * ExpenseTable 은 금액, 연도, 태그를 각각 primitive 배열로 저장하여 행마다 객체를 만들지 않고 연도별로 집계한다.
+		 */
+		YearTotals totalsByYearMore1000 = ExpenseTable.of(expenses).totalsByYearWhereAmountGreaterThan(1_000);
+	}
+	
+	
+	private static void materializedViews() {
+		/**
+		 * Expense 가 계속 추가되는 환경에서 보고서를 볼 때 마다 전체 목록을 다시 스트리밍하면 비용이 전체 이력에 비례한다.
+		 * groupingBy + filtering/flatMapping 과 같은 모양의 view 를 미리 등록해두면 추가되는 Expense 마다 해당 그룹만 갱신된다.
+		 * view 는 갱신할 때마다 누적값의 복사본을 게시하므로, 누적값을 복사하는 방법을 알 수 있도록 Collector.of 로 만든다.
+		 */
+		ExpenseViews views = new ExpenseViews();
+		MaterializedView<Integer, List<Expense>> listByYearMore1000 =
+				views.register(expense -> expense.getAmount() > 1_000, Expense::getYear,
+							   Collector.of(ArrayList<Expense>::new, ArrayList::add,
+											(left, right) -> { left.addAll(right); return left; },
+											Collections::unmodifiableList),
+							   ArrayList::new);
+		MaterializedView<Integer, Set<Tag>> tagsByYear =
+				views.register(expense -> true, Expense::getYear,
+							   Collector.of(() -> EnumSet.noneOf(Tag.class), (tags, expense) -> tags.addAll(expense.getTags()),
+											(left, right) -> { left.addAll(right); return left; },
+											Collections::unmodifiableSet),
+							   EnumSet::copyOf);
+		
+		views.append(new Expense(1_500, 2018, List.of(Tag.TRAVEL)));
+		views.append(new Expense(300, 2018, List.of(Tag.FOOD, Tag.ENTERTAINMENT)));
+		views.append(new Expense(2_000, 2019, List.of(Tag.UTILITY)));
+		
+		System.out.println(listByYearMore1000.snapshot().keySet());
+		System.out.println(tagsByYear.snapshot());
+	}
+	
+	private static void memoryMappedExpenses() throws IOException {
+		/**
+		 * 수 GB 의 Expense 이력을 ArrayList 로 읽어들이면 힙의 대부분을 차지하게 된다.
+		 * 고정 길이 이진 파일로 기록하고 메모리 매핑하여 읽으면, 힙으로 복사하지 않고도 같은 Collectors 파이프라인을 병렬로 실행할 수 있다.
+		 */
+		Path file = Files.createTempFile("expenses", ".bin");
+		try {
+			ExpenseFileWriter.write(file, List.of(new Expense(1_500, 2018, List.of(Tag.TRAVEL)),
+												  new Expense(300, 2018, List.of(Tag.FOOD)),
+												  new Expense(2_000, 2019, List.of(Tag.UTILITY, Tag.TRAVEL))));
+			
+			try (ExpenseFileReader reader = ExpenseFileReader.open(file)) {
+				Map<Integer, List<Expense>> listByYearMore1000
+					= reader.parallelStream()
+							.collect(groupingBy(Expense::getYear, 
+									filtering(expense -> expense.getAmount() > 1_000, toList())));
+				System.out.println(listByYearMore1000.keySet());
+			}
+		} finally {
+			Files.delete(file);
+		}
 	}
 	
+	private static void sketchCollectors() {
+		Random random = new Random(42);
+		List<Expense> expenses = new ArrayList<Expense>();
+		for (int i = 0; i < 100_000; i++) {
+			expenses.add(new Expense((long) Math.exp(random.nextGaussian() * 1.5 + 7), 2015 + random.nextInt(5),
+									 List.of(Tag.values()[random.nextInt(Tag.values().length)])));
+		}
+		
+		/**
+		 * 연도별 p50/p95/p99 나 태그별 상위 n 건을 구할 때 groupingBy(..., toList()) 후 정렬하면 그룹 전체를 유지해야 한다.
+		 * 스케치 Collector 는 그룹의 크기와 관계없이 일정한 메모리를 사용하고, 병렬 스트림에서도 오차 보장을 유지한 채 병합된다.
+		 */
+		Map<Integer, QuantileSketch> amountQuantilesByYear
+			= expenses.parallelStream()
+					  .collect(groupingBy(Expense::getYear, SketchCollectors.quantiles(Expense::getAmount)));
+		Map<Tag, List<Expense>> top3ByTag
+			= expenses.parallelStream()
+					  .collect(groupingBy(expense -> expense.getTags().get(0),
+							  SketchCollectors.topN(3, Comparator.comparingLong(Expense::getAmount))));
+		
+		/**
+		 * 분위수의 상대 오차는 relativeAccuracy (1%) 이내이다. 여러 분포에 대한 확인은 SketchCollectorsBenchmark 의 setUp 에서 한다.
+		 */
+		System.out.println(amountQuantilesByYear.get(2015));
+		System.out.println(top3ByTag.get(Tag.TRAVEL).get(0).getAmount());
+	}
 	
 	private void flatMappingImprovement() {
 		List<Expense> expenses = new ArrayList<Expense>();
@@ -62,6 +157,16 @@ public class CollectorsImprovements {
 			        flatMapping(expense -> expense.getTags().stream(), toSet())
 			    ));
 		
+		/**
+		 * flatMapping() 은 요소마다 Stream 객체를 만든다. Tag 는 작은 enum 이므로 연도별 태그 집합을 비트마스크 하나로 누적할 수 있다.
+		 * TagCollectors 는 요소마다 객체를 만들지 않고 EnumSet, EnumMap 형태의 결과를 돌려준다.
+		 */
+		Map<Integer, Set<Tag>> tagsByYearWithMask = expenses.stream()
+															.collect(TagCollectors.tagUnionByYear());
+		
+		YearTagCounts tagCountsByYear = expenses.stream()
+												.collect(TagCollectors.tagCountsByYear());
+		
 	}
 	
 }
@@ -70,11 +175,13 @@ class Expense {
     private final long amount;
     private final int year;
     private final List<Tag> tags;
+    private final int tagMask;
 
     Expense(long amount, int year, List<Tag> tags) {
         this.amount = amount;
         this.year = year;
         this.tags = tags;
+        this.tagMask = TagMask.of(tags);
     }
 
     long getAmount() {
@@ -88,6 +195,13 @@ class Expense {
     List<Tag> getTags() {
         return tags;
     }
+
+    /**
+     * tags 를 TagMask 형태로 표현한 값
+     */
+    int getTagMask() {
+        return tagMask;
+    }
 }
 
 enum Tag {
@@ -0,0 +1,220 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ExpenseFileWriter 로 기록한 파일을 메모리 매핑하여 읽는다.
+ *
+ * 파일 전체를 힙으로 복사하지 않고, 2GB 이하의 세그먼트 단위로 매핑한 영역을 레코드 인덱스로 직접 읽는다.
+ * stream() 은 레코드 범위를 반씩 나누는 SIZED Spliterator 를 사용하므로 groupingBy/filtering 파이프라인을 그대로 병렬로 실행할 수 있다.
+ * 행마다 Expense 를 만들지 않으려면 cursor() 를 사용한다.
+ *
+ * 매핑된 영역은 close() 이후에도 GC 될 때 까지 유지된다.
+ */
+final class ExpenseFileReader implements AutoCloseable {
+	private static final int RECORDS_PER_SEGMENT = Integer.MAX_VALUE / ExpenseFileWriter.RECORD_BYTES;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final long size;
+
+	private ExpenseFileReader(FileChannel channel, MappedByteBuffer[] segments, long size) {
+		this.channel = channel;
+		this.segments = segments;
+		this.size = size;
+	}
+
+	static ExpenseFileReader open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			if (channel.size() < ExpenseFileWriter.HEADER_BYTES) {
+				throw new IOException("Not an expense file: " + path);
+			}
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, ExpenseFileWriter.HEADER_BYTES);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != ExpenseFileWriter.MAGIC || header.getInt(4) != ExpenseFileWriter.VERSION) {
+				throw new IOException("Not an expense file: " + path);
+			}
+			long size = header.getLong(8);
+			// size 는 파일에서 읽은 값이므로 음수이거나 곱셈이 넘칠 수 있다. 넘치면 잘린 파일로 본다.
+			long expectedBytes;
+			try {
+				expectedBytes = Math.addExact(ExpenseFileWriter.HEADER_BYTES,
+											  Math.multiplyExact(size, (long) ExpenseFileWriter.RECORD_BYTES));
+			} catch (ArithmeticException overflow) {
+				throw new IOException("Corrupt expense file header, size " + size + ": " + path);
+			}
+			if (size < 0 || channel.size() < expectedBytes) {
+				throw new IOException("Truncated expense file: " + path);
+			}
+
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT)];
+			for (int i = 0; i < segments.length; i++) {
+				long first = (long) i * RECORDS_PER_SEGMENT;
+				long records = Math.min(RECORDS_PER_SEGMENT, size - first);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+										  ExpenseFileWriter.HEADER_BYTES + first * ExpenseFileWriter.RECORD_BYTES,
+										  records * ExpenseFileWriter.RECORD_BYTES);
+				segments[i].order(ByteOrder.LITTLE_ENDIAN);
+			}
+			return new ExpenseFileReader(channel, segments, size);
+		} catch (IOException | RuntimeException exception) {
+			channel.close();
+			throw exception;
+		}
+	}
+
+	long size() {
+		return size;
+	}
+
+	long amount(long index) {
+		return segment(index).getLong(offset(index));
+	}
+
+	int year(long index) {
+		return segment(index).getInt(offset(index) + 8);
+	}
+
+	int tagMask(long index) {
+		return segment(index).getInt(offset(index) + 12);
+	}
+
+	Expense expense(long index) {
+		return new Expense(amount(index), year(index), TagMask.toList(tagMask(index)));
+	}
+
+	Stream<Expense> stream() {
+		return StreamSupport.stream(new ExpenseSpliterator(0, size), false);
+	}
+
+	Stream<Expense> parallelStream() {
+		return StreamSupport.stream(new ExpenseSpliterator(0, size), true);
+	}
+
+	ExpenseCursor cursor() {
+		return cursor(0, size);
+	}
+
+	/**
+	 * [from, to) 범위의 레코드를 순회하는 커서
+	 */
+	ExpenseCursor cursor(long from, long to) {
+		if (from < 0 || to > size || from > to) {
+			throw new IndexOutOfBoundsException("[" + from + ", " + to + ") of " + size);
+		}
+		return new ExpenseCursor(from, to);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private MappedByteBuffer segment(long index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+		}
+		return segments[(int) (index / RECORDS_PER_SEGMENT)];
+	}
+
+	private static int offset(long index) {
+		return (int) (index % RECORDS_PER_SEGMENT) * ExpenseFileWriter.RECORD_BYTES;
+	}
+
+	/**
+	 * 한 레코드를 가리키는 재사용 커서. next() 로 이동한 뒤 현재 레코드의 값을 읽는다.
+	 */
+	final class ExpenseCursor {
+		private final long to;
+		private long index;
+
+		private ExpenseCursor(long from, long to) {
+			this.index = from - 1;
+			this.to = to;
+		}
+
+		boolean next() {
+			if (index + 1 >= to) {
+				index = to;
+				return false;
+			}
+			index++;
+			return true;
+		}
+
+		long index() {
+			return index;
+		}
+
+		long amount() {
+			return ExpenseFileReader.this.amount(index);
+		}
+
+		int year() {
+			return ExpenseFileReader.this.year(index);
+		}
+
+		int tagMask() {
+			return ExpenseFileReader.this.tagMask(index);
+		}
+	}
+
+	private final class ExpenseSpliterator implements Spliterator<Expense> {
+		private long index;
+		private final long fence;
+
+		private ExpenseSpliterator(long index, long fence) {
+			this.index = index;
+			this.fence = fence;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Expense> action) {
+			if (index >= fence) {
+				return false;
+			}
+			action.accept(expense(index++));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super Expense> action) {
+			long current = index;
+			index = fence;
+			for (; current < fence; current++) {
+				action.accept(expense(current));
+			}
+		}
+
+		@Override
+		public Spliterator<Expense> trySplit() {
+			long middle = (index + fence) >>> 1;
+			if (middle <= index) {
+				return null;
+			}
+			ExpenseSpliterator prefix = new ExpenseSpliterator(index, middle);
+			index = middle;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Expense 를 고정 길이 이진 형식으로 기록한다.
+ *
+ * 헤더(16 바이트): int MAGIC, int VERSION, long 레코드 수
+ * 레코드(16 바이트): long amount, int year, int tagMask
+ * 모든 값은 little-endian 이다. 레코드 수는 close() 에서 기록된다.
+ */
+final class ExpenseFileWriter implements AutoCloseable {
+	static final int MAGIC = 0x45585031;
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+	static final int RECORD_BYTES = 16;
+
+	private static final int BUFFER_RECORDS = 4096;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+	private long records;
+
+	private ExpenseFileWriter(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	static ExpenseFileWriter create(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+											   StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(HEADER_BYTES);
+		return new ExpenseFileWriter(channel);
+	}
+
+	static void write(Path path, Iterable<Expense> expenses) throws IOException {
+		try (ExpenseFileWriter writer = create(path)) {
+			for (Expense expense : expenses) {
+				writer.write(expense);
+			}
+		}
+	}
+
+	void write(Expense expense) throws IOException {
+		write(expense.getAmount(), expense.getYear(), expense.getTagMask());
+	}
+
+	void write(long amount, int year, int tagMask) throws IOException {
+		if (!buffer.hasRemaining()) {
+			flush();
+		}
+		buffer.putLong(amount).putInt(year).putInt(tagMask);
+		records++;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putLong(records).flip();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,151 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.LongPredicate;
+
+/**
+ * Expense 를 행마다 객체로 두지 않고 금액(long[]), 연도(int[]), 태그 비트마스크(int[]) 열로 저장하는 테이블.
+ *
+ * 행당 16 바이트만 사용하며, 연도별 집계는 연도 범위 크기의 배열에 바로 누적하므로 행마다 객체를 만들지 않는다.
+ * 연도 범위가 YearTotals.MAX_DENSE_YEAR_RANGE 보다 넓으면 연도별 IntObjectMap 에 누적한다.
+ * 쓰기는 한 스레드에서만 해야 한다.
+ */
+final class ExpenseTable {
+	private long[] amounts;
+	private int[] years;
+	private int[] tagMasks;
+	private int size;
+	private int minYear = Integer.MAX_VALUE;
+	private int maxYear = Integer.MIN_VALUE;
+
+	ExpenseTable(int initialCapacity) {
+		amounts = new long[initialCapacity];
+		years = new int[initialCapacity];
+		tagMasks = new int[initialCapacity];
+	}
+
+	static ExpenseTable of(Collection<Expense> expenses) {
+		ExpenseTable table = new ExpenseTable(expenses.size());
+		for (Expense expense : expenses) {
+			table.add(expense);
+		}
+		return table;
+	}
+
+	void add(Expense expense) {
+		add(expense.getAmount(), expense.getYear(), expense.getTagMask());
+	}
+
+	void add(long amount, int year, int tagMask) {
+		if (size == amounts.length) {
+			int capacity = Math.max(16, size + (size >> 1));
+			amounts = Arrays.copyOf(amounts, capacity);
+			years = Arrays.copyOf(years, capacity);
+			tagMasks = Arrays.copyOf(tagMasks, capacity);
+		}
+		amounts[size] = amount;
+		years[size] = year;
+		tagMasks[size] = tagMask;
+		size++;
+		minYear = Math.min(minYear, year);
+		maxYear = Math.max(maxYear, year);
+	}
+
+	int size() {
+		return size;
+	}
+
+	long amount(int row) {
+		checkRow(row);
+		return amounts[row];
+	}
+
+	int year(int row) {
+		checkRow(row);
+		return years[row];
+	}
+
+	int tagMask(int row) {
+		checkRow(row);
+		return tagMasks[row];
+	}
+
+	/**
+	 * amount > threshold 인 행의 연도별 건수와 합계. listByYearMore1000 과 같은 질의를 위한 특화 버전
+	 */
+	YearTotals totalsByYearWhereAmountGreaterThan(long threshold) {
+		if (!YearTotals.fitsDense(minYear, maxYear)) {
+			return sparseTotalsByYear(amount -> amount > threshold, 0);
+		}
+		long[] counts = new long[yearRange()];
+		long[] sums = new long[counts.length];
+		for (int row = 0; row < size; row++) {
+			long amount = amounts[row];
+			if (amount > threshold) {
+				int index = years[row] - minYear;
+				counts[index]++;
+				sums[index] += amount;
+			}
+		}
+		return new YearTotals(minYear, counts, sums);
+	}
+
+	YearTotals totalsByYear(LongPredicate amountFilter) {
+		return totalsByYear(amountFilter, 0);
+	}
+
+	/**
+	 * @param requiredTagMask 행이 모두 가지고 있어야 하는 태그. 0 이면 태그로 거르지 않는다.
+	 */
+	YearTotals totalsByYear(LongPredicate amountFilter, int requiredTagMask) {
+		if (!YearTotals.fitsDense(minYear, maxYear)) {
+			return sparseTotalsByYear(amountFilter, requiredTagMask);
+		}
+		long[] counts = new long[yearRange()];
+		long[] sums = new long[counts.length];
+		for (int row = 0; row < size; row++) {
+			long amount = amounts[row];
+			if ((tagMasks[row] & requiredTagMask) == requiredTagMask && amountFilter.test(amount)) {
+				int index = years[row] - minYear;
+				counts[index]++;
+				sums[index] += amount;
+			}
+		}
+		return new YearTotals(minYear, counts, sums);
+	}
+
+	/**
+	 * 연도마다 {건수, 합계} 배열을 두고 누적한 뒤 연도 순으로 정렬한다.
+	 */
+	private YearTotals sparseTotalsByYear(LongPredicate amountFilter, int requiredTagMask) {
+		IntObjectMap<long[]> totals = new IntObjectMap<>(16);
+		for (int row = 0; row < size; row++) {
+			long amount = amounts[row];
+			if ((tagMasks[row] & requiredTagMask) == requiredTagMask && amountFilter.test(amount)) {
+				long[] total = totals.computeIfAbsent(years[row], year -> new long[2]);
+				total[0]++;
+				total[1] += amount;
+			}
+		}
+		int[] sortedYears = totals.keys();
+		long[] counts = new long[sortedYears.length];
+		long[] sums = new long[sortedYears.length];
+		for (int i = 0; i < sortedYears.length; i++) {
+			long[] total = totals.get(sortedYears[i]);
+			counts[i] = total[0];
+			sums[i] = total[1];
+		}
+		return YearTotals.sparse(sortedYears, counts, sums);
+	}
+
+	private int yearRange() {
+		return size == 0 ? 0 : maxYear - minYear + 1;
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+		}
+	}
+}
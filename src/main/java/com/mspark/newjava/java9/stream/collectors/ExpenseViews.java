@@ -0,0 +1,43 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collector;
+
+/**
+ * 계속 추가되는 Expense 에 대한 MaterializedView 들을 관리한다.
+ *
+ * 보고서마다 전체 expenses 를 다시 스트리밍하면 비용이 누적된 이력의 크기에 비례한다.
+ * 등록된 view 는 append() 되는 Expense 한건마다 해당 그룹만 갱신되며(누적값 복사 비용 포함), 등록 이전에 추가된 Expense 는 반영되지 않는다.
+ */
+final class ExpenseViews {
+	private final List<MaterializedView<?, ?>> views = new CopyOnWriteArrayList<>();
+
+	/**
+	 * groupingBy(groupKey, filtering(filter, downstream)) 과 같은 모양의 view 를 등록한다.
+	 * copy 는 downstream 의 누적값을 공유하는 부분 없이 복사해야 한다.
+	 */
+	<K, A, R> MaterializedView<K, R> register(Predicate<? super Expense> filter,
+											  Function<? super Expense, ? extends K> groupKey,
+											  Collector<? super Expense, A, R> downstream,
+											  UnaryOperator<A> copy) {
+		MaterializedView<K, R> view = new MaterializedView<>(filter, groupKey, downstream, copy);
+		views.add(view);
+		return view;
+	}
+
+	void append(Expense expense) {
+		for (MaterializedView<?, ?> view : views) {
+			view.append(expense);
+		}
+	}
+
+	void appendAll(Iterable<Expense> expenses) {
+		for (Expense expense : expenses) {
+			append(expense);
+		}
+	}
+}
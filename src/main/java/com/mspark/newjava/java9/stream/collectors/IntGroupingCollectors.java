@@ -0,0 +1,135 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * int 키(연도 등)로 그룹핑하는 병렬 스트림용 Collector 모음.
+ *
+ * groupingBy(Expense::getYear, ...) 를 병렬로 실행하면 fork 마다 Integer 키의 HashMap 을 만들고 병합 시 키를 다시 해싱한다.
+ * groupingByInt() 는 fork 마다 IntObjectMap 에 downstream 누적값을 두고, 병합 시에는 그룹 수 만큼만 downstream combiner 를 호출한다.
+ * Integer 키와 결과 Map 은 finisher 에서 그룹마다 한번만 만든다.
+ *
+ * 합계와 건수만 필요하다면 sumAndCountByYear() 는 모든 스레드가 하나의 연도별 LongAdder 를 공유하는 CONCURRENT Collector 로,
+ * 병합 단계가 아예 없다.
+ */
+final class IntGroupingCollectors {
+
+	private IntGroupingCollectors() {
+	}
+
+	static <T, A, R> Collector<T, ?, Map<Integer, R>> groupingByInt(ToIntFunction<? super T> classifier,
+																   Collector<? super T, A, R> downstream) {
+		Supplier<A> supplier = downstream.supplier();
+		BiConsumer<A, ? super T> accumulator = downstream.accumulator();
+		BinaryOperator<A> combiner = downstream.combiner();
+		Function<A, R> finisher = downstream.finisher();
+
+		BiConsumer<IntObjectMap<A>, T> accumulate = (groups, element) ->
+				accumulator.accept(groups.computeIfAbsent(classifier.applyAsInt(element), key -> supplier.get()), element);
+
+		BinaryOperator<IntObjectMap<A>> merge = (left, right) -> {
+			right.forEach((container, key) -> {
+				A existing = left.get(key);
+				left.put(key, existing == null ? container : combiner.apply(existing, container));
+			});
+			return left;
+		};
+
+		Function<IntObjectMap<A>, Map<Integer, R>> finish = groups -> {
+			Map<Integer, R> result = new HashMap<>(groups.size() * 2);
+			groups.forEach((container, key) -> result.put(key, finisher.apply(container)));
+			return result;
+		};
+
+		return Collector.of(() -> new IntObjectMap<>(16), accumulate, merge, finish);
+	}
+
+	/**
+	 * 연도별 건수와 합계를 스레드간 공유되는 LongAdder 에 누적한다.
+	 * 연도별 셀 조회는 불변 IntObjectMap 스냅샷을 읽으므로 lock 이 없고, 처음 보는 연도를 추가할 때만 복사 후 교체한다.
+	 */
+	static <T> Collector<T, ?, YearTotals> sumAndCountByYear(ToIntFunction<? super T> year, ToLongFunction<? super T> amount) {
+		return Collector.<T, StripedYearTotals, YearTotals>of(
+				StripedYearTotals::new,
+				(totals, element) -> totals.cell(year.applyAsInt(element)).add(amount.applyAsLong(element)),
+				StripedYearTotals::merge,
+				StripedYearTotals::toYearTotals,
+				Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+	}
+
+	private static final class StripedYearTotals {
+		private volatile IntObjectMap<Cell> cells = new IntObjectMap<>(32);
+
+		Cell cell(int year) {
+			Cell cell = cells.get(year);
+			return cell != null ? cell : addCell(year);
+		}
+
+		private synchronized Cell addCell(int year) {
+			Cell cell = cells.get(year);
+			if (cell == null) {
+				IntObjectMap<Cell> copy = cells.copy();
+				cell = new Cell();
+				copy.put(year, cell);
+				cells = copy;
+			}
+			return cell;
+		}
+
+		/**
+		 * CONCURRENT Collector 라도 순서가 있는 스트림에서는 병합될 수 있다.
+		 */
+		StripedYearTotals merge(StripedYearTotals other) {
+			other.cells.forEach((otherCell, year) -> {
+				Cell cell = cell(year);
+				cell.count.add(otherCell.count.sum());
+				cell.sum.add(otherCell.sum.sum());
+			});
+			return this;
+		}
+
+		YearTotals toYearTotals() {
+			int[] years = cells.keys();
+			if (years.length == 0) {
+				return new YearTotals(0, new long[0], new long[0]);
+			}
+			int firstYear = years[0];
+			if (!YearTotals.fitsDense(firstYear, years[years.length - 1])) {
+				long[] counts = new long[years.length];
+				long[] sums = new long[years.length];
+				for (int i = 0; i < years.length; i++) {
+					Cell cell = cells.get(years[i]);
+					counts[i] = cell.count.sum();
+					sums[i] = cell.sum.sum();
+				}
+				return YearTotals.sparse(years, counts, sums);
+			}
+			long[] counts = new long[years[years.length - 1] - firstYear + 1];
+			long[] sums = new long[counts.length];
+			cells.forEach((cell, year) -> {
+				counts[year - firstYear] = cell.count.sum();
+				sums[year - firstYear] = cell.sum.sum();
+			});
+			return new YearTotals(firstYear, counts, sums);
+		}
+	}
+
+	private static final class Cell {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+
+		void add(long amount) {
+			count.increment();
+			sum.add(amount);
+		}
+	}
+}
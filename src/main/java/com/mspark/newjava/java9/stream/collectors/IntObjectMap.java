@@ -0,0 +1,133 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * int 키를 박싱하지 않는 open addressing(선형 탐사) 해시 맵. 값으로 null 을 허용하지 않으며 삭제를 지원하지 않는다.
+ * 스레드에 안전하지 않다.
+ */
+final class IntObjectMap<V> {
+	private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+	private int[] keys;
+	private Object[] values;
+	private int size;
+	private int shift;
+
+	IntObjectMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+		allocate(capacity);
+	}
+
+	int size() {
+		return size;
+	}
+
+	@SuppressWarnings("unchecked")
+	V get(int key) {
+		int mask = keys.length - 1;
+		for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+			Object value = values[slot];
+			if (value == null || keys[slot] == key) {
+				return (V) value;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	V put(int key, V value) {
+		if (value == null) {
+			throw new NullPointerException("value");
+		}
+		int mask = keys.length - 1;
+		for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+			Object previous = values[slot];
+			if (previous == null) {
+				keys[slot] = key;
+				values[slot] = value;
+				if (++size * 2 > keys.length) {
+					rehash(keys.length << 1);
+				}
+				return null;
+			}
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return (V) previous;
+			}
+		}
+	}
+
+	V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+		V value = get(key);
+		if (value == null) {
+			value = mappingFunction.apply(key);
+			put(key, value);
+		}
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	void forEach(ObjIntConsumer<? super V> action) {
+		for (int slot = 0; slot < values.length; slot++) {
+			if (values[slot] != null) {
+				action.accept((V) values[slot], keys[slot]);
+			}
+		}
+	}
+
+	/**
+	 * 오름차순으로 정렬된 키 배열
+	 */
+	int[] keys() {
+		int[] result = new int[size];
+		int[] index = {0};
+		forEach((value, key) -> result[index[0]++] = key);
+		Arrays.sort(result);
+		return result;
+	}
+
+	IntObjectMap<V> copy() {
+		IntObjectMap<V> copy = new IntObjectMap<>(0);
+		copy.keys = keys.clone();
+		copy.values = values.clone();
+		copy.size = size;
+		copy.shift = shift;
+		return copy;
+	}
+
+	private int slot(int key) {
+		return (key * GOLDEN_RATIO) >>> shift;
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Object[capacity];
+		shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		int mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int slot = slot(oldKeys[i]);
+				while (values[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		forEach((value, key) -> builder.append(builder.length() > 1 ? ", " : "").append(key).append('=').append(value));
+		return builder.append('}').toString();
+	}
+}
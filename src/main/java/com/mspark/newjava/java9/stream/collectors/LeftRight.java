@@ -0,0 +1,74 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Left-Right 동시성 기법. 같은 자료구조 두 벌을 두고, 쓰기는 읽기가 없는 쪽에 먼저 적용한 뒤 읽기를 그쪽으로 돌리고,
+ * 이전 쪽의 읽기가 모두 끝나기를 기다렸다가 같은 쓰기를 한번 더 적용한다.
+ *
+ * 읽기는 lock 도 재시도도 없이 항상 일정한 단계로 끝나며(wait-free), 쓰기끼리는 서로 직렬화된다.
+ * 쓰기 함수는 두 인스턴스에 각각 한번씩 적용되므로 결정적이어야 한다.
+ * 읽기 함수가 돌려주는 값은 읽기 구간 밖에서 인스턴스를 참조하면 안 된다.
+ */
+final class LeftRight<S> {
+	private final S left;
+	private final S right;
+	private final ReadIndicator[] readIndicators = {new ReadIndicator(), new ReadIndicator()};
+	private volatile boolean readLeft = true;
+	private volatile int versionIndex;
+
+	LeftRight(S left, S right) {
+		this.left = left;
+		this.right = right;
+	}
+
+	<T> T read(Function<? super S, ? extends T> reader) {
+		ReadIndicator indicator = readIndicators[versionIndex];
+		indicator.arrive();
+		try {
+			return reader.apply(readLeft ? left : right);
+		} finally {
+			indicator.depart();
+		}
+	}
+
+	synchronized void write(Consumer<? super S> writer) {
+		boolean wasReadingLeft = readLeft;
+		writer.accept(wasReadingLeft ? right : left);
+		readLeft = !wasReadingLeft;
+		toggleVersionAndWait();
+		writer.accept(wasReadingLeft ? left : right);
+	}
+
+	private void toggleVersionAndWait() {
+		int previous = versionIndex;
+		int next = previous ^ 1;
+		readIndicators[next].awaitEmpty();
+		versionIndex = next;
+		readIndicators[previous].awaitEmpty();
+	}
+
+	private static final class ReadIndicator {
+		private final LongAdder ingress = new LongAdder();
+		private final LongAdder egress = new LongAdder();
+
+		void arrive() {
+			ingress.increment();
+		}
+
+		void depart() {
+			egress.increment();
+		}
+
+		/**
+		 * 두 카운터 모두 증가만 하므로 egress 를 먼저 읽으면, 읽기 중인 스레드가 있는 동안에는 절대 같아질 수 없다.
+		 */
+		void awaitEmpty() {
+			while (egress.sum() != ingress.sum()) {
+				Thread.onSpinWait();
+			}
+		}
+	}
+}
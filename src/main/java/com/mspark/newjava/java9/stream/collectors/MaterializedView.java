@@ -0,0 +1,66 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collector;
+
+/**
+ * filter + 그룹 키 + downstream Collector 로 정의한, 추가되는 Expense 마다 갱신되는 집계.
+ * expenses.stream().filter(filter).collect(groupingBy(groupKey, downstream)) 를 매번 다시 계산하지 않고
+ * Expense 한건마다 해당 그룹의 누적값에만 accumulator 를 적용한다.
+ *
+ * 그룹마다 누적값(container)은 하나만 두고 append() 에서만 변경한다. 변경할 때마다 copy 로 복사한 누적값에 finisher 를 적용한
+ * 결과를 LeftRight 로 유지하는 그룹 맵에 게시하므로, get() 은 O(1), snapshot() 은 O(그룹 수) 이고 읽기가 쓰기를 오래 붙잡지 않는다.
+ * 게시된 결과는 모든 읽기가 공유하므로 변경하면 안 된다. (finisher 가 unmodifiable 뷰를 돌려주도록 만들면 안전하다)
+ * copy 는 누적값과 공유하는 부분이 없는 복사본을 만들어야 한다. 쓰기 비용은 copy 의 비용만큼 늘어난다.
+ */
+final class MaterializedView<K, R> {
+	private final Predicate<? super Expense> filter;
+	private final Function<? super Expense, ? extends K> groupKey;
+	private final Supplier<Object> supplier;
+	private final BiConsumer<Object, ? super Expense> accumulator;
+	private final Function<Object, R> finisher;
+	private final UnaryOperator<Object> copy;
+	private final Map<K, Object> containers = new HashMap<>();
+	private final LeftRight<Map<K, R>> published = new LeftRight<>(new HashMap<>(), new HashMap<>());
+
+	@SuppressWarnings("unchecked")
+	<A> MaterializedView(Predicate<? super Expense> filter, Function<? super Expense, ? extends K> groupKey,
+						 Collector<? super Expense, A, R> downstream, UnaryOperator<A> copy) {
+		Collector<? super Expense, Object, R> collector = (Collector<? super Expense, Object, R>) downstream;
+		this.filter = filter;
+		this.groupKey = groupKey;
+		this.supplier = collector.supplier();
+		this.accumulator = collector.accumulator();
+		this.finisher = collector.finisher();
+		this.copy = (UnaryOperator<Object>) copy;
+	}
+
+	synchronized void append(Expense expense) {
+		if (!filter.test(expense)) {
+			return;
+		}
+		K key = groupKey.apply(expense);
+		Object container = containers.computeIfAbsent(key, k -> supplier.get());
+		accumulator.accept(container, expense);
+		R result = finisher.apply(copy.apply(container));
+		published.write(map -> map.put(key, result));
+	}
+
+	/**
+	 * @return 그룹이 없으면 null
+	 */
+	R get(K key) {
+		return published.read(map -> map.get(key));
+	}
+
+	Map<K, R> snapshot() {
+		return published.read(map -> Collections.unmodifiableMap(new HashMap<>(map)));
+	}
+}
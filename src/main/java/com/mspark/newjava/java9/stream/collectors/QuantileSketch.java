@@ -0,0 +1,219 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.Arrays;
+
+/**
+ * 상대 오차가 보장되는 병합 가능한 분위수 스케치 (DDSketch 방식).
+ *
+ * 값 x (> 0) 를 gamma = (1 + α) / (1 - α) 를 밑으로 하는 로그 버킷 ceil(log_gamma(x)) 에 세고,
+ * 분위수를 물으면 해당 순위가 속한 버킷의 대표값 2 * gamma^i / (gamma + 1) 을 돌려준다.
+ * 버킷에 속한 모든 값과 대표값의 차이는 α 배 이내이므로, quantile(q) 는 정확한 q 분위수
+ * (정렬된 n 개의 값 중 floor(q * (n - 1)) 번째 값) 를 x_q 라 할 때 |quantile(q) - x_q| <= α * |x_q| 를 만족한다.
+ * 음수는 절대값으로 별도의 버킷에 세고, 0 은 따로 센다.
+ *
+ * 버킷 수는 maxBuckets 로 제한된다. 이를 넘으면 절대값이 가장 작은 버킷들을 하나로 합치므로 그 구간의 분위수만 보장을 잃는다.
+ * α = 0.01, maxBuckets = 2048 이면 1 부터 약 10^17 까지의 범위를 합치지 않고 표현한다.
+ * 병합은 버킷별 건수의 합이므로, 버킷이 합쳐지지 않는 동안에는 병렬 스트림에서 합치는 순서와 관계없이 같은 결과가 된다.
+ * 버킷이 합쳐지기 시작하면 어느 버킷까지 합쳐지는지가 병합 순서에 따라 달라질 수 있으므로 결과도 순서에 따라 다를 수 있다.
+ * (합쳐지지 않은 구간의 오차 보장은 그대로 유지된다)
+ */
+final class QuantileSketch {
+	static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+	static final int DEFAULT_MAX_BUCKETS = 2048;
+
+	private final double relativeAccuracy;
+	private final double gamma;
+	private final double logGamma;
+	private final int maxBuckets;
+	private final Buckets positive;
+	private final Buckets negative;
+	private long zeroCount;
+	private long count;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	QuantileSketch() {
+		this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+	}
+
+	QuantileSketch(double relativeAccuracy, int maxBuckets) {
+		if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+			throw new IllegalArgumentException("relativeAccuracy must be in (0, 1): " + relativeAccuracy);
+		}
+		if (maxBuckets < 1) {
+			throw new IllegalArgumentException("maxBuckets must be positive: " + maxBuckets);
+		}
+		this.relativeAccuracy = relativeAccuracy;
+		this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+		this.logGamma = Math.log(gamma);
+		this.maxBuckets = maxBuckets;
+		this.positive = new Buckets(maxBuckets);
+		this.negative = new Buckets(maxBuckets);
+	}
+
+	double relativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	void add(double value) {
+		if (Double.isNaN(value)) {
+			throw new IllegalArgumentException("NaN");
+		}
+		if (value > 0) {
+			positive.add(index(value), 1);
+		} else if (value < 0) {
+			negative.add(index(-value), 1);
+		} else {
+			zeroCount++;
+		}
+		count++;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	QuantileSketch merge(QuantileSketch other) {
+		if (other.gamma != gamma || other.maxBuckets != maxBuckets) {
+			throw new IllegalArgumentException("Sketches with different accuracy cannot be merged");
+		}
+		positive.addAll(other.positive);
+		negative.addAll(other.negative);
+		zeroCount += other.zeroCount;
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	long count() {
+		return count;
+	}
+
+	double min() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	double max() {
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * q 분위수의 근사값. 비어있으면 NaN
+	 */
+	double quantile(double q) {
+		if (q < 0 || q > 1) {
+			throw new IllegalArgumentException("q must be in [0, 1]: " + q);
+		}
+		if (count == 0) {
+			return Double.NaN;
+		}
+		long rank = (long) (q * (count - 1));
+		double value;
+		if (rank < negative.total) {
+			// 음수는 절대값이 큰 버킷, 즉 높은 인덱스부터 작은 값 순서가 된다.
+			value = -representative(negative.indexOfRank(negative.total - 1 - rank));
+		} else if (rank < negative.total + zeroCount) {
+			value = 0;
+		} else {
+			value = representative(positive.indexOfRank(rank - negative.total - zeroCount));
+		}
+		return Math.max(min, Math.min(max, value));
+	}
+
+	private int index(double value) {
+		return (int) Math.ceil(Math.log(value) / logGamma);
+	}
+
+	private double representative(int index) {
+		return 2 * Math.pow(gamma, index) / (gamma + 1);
+	}
+
+	@Override
+	public String toString() {
+		return "QuantileSketch [count=" + count + ", p50=" + quantile(0.5) + ", p95=" + quantile(0.95)
+				+ ", p99=" + quantile(0.99) + "]";
+	}
+
+	/**
+	 * 연속된 버킷 인덱스의 건수. counts[0] 이 offset 번째 버킷이고, top 은 사용된 가장 큰 인덱스이다.
+	 */
+	private static final class Buckets {
+		private final int maxBuckets;
+		private long[] counts = new long[0];
+		private int offset;
+		private int top;
+		private long total;
+
+		Buckets(int maxBuckets) {
+			this.maxBuckets = maxBuckets;
+		}
+
+		void add(int index, long increment) {
+			if (counts.length == 0) {
+				counts = new long[8];
+				offset = index;
+				top = index;
+			}
+			if (index < offset) {
+				int newOffset = Math.max(index, top - maxBuckets + 1);
+				if (newOffset < offset) {
+					int length = Math.max(top - newOffset + 1, Math.min(counts.length + offset - newOffset, maxBuckets));
+					long[] grown = new long[length];
+					System.arraycopy(counts, 0, grown, offset - newOffset, top - offset + 1);
+					counts = grown;
+					offset = newOffset;
+				}
+				index = Math.max(index, offset);
+			} else if (index > top) {
+				if (index - offset >= maxBuckets) {
+					collapseBelow(index - maxBuckets + 1);
+				}
+				if (index - offset >= counts.length) {
+					counts = Arrays.copyOf(counts, Math.min(Math.max(index - offset + 1, counts.length * 2), maxBuckets));
+				}
+				top = index;
+			}
+			counts[index - offset] += increment;
+			total += increment;
+		}
+
+		void addAll(Buckets other) {
+			for (int i = 0; i < other.counts.length; i++) {
+				if (other.counts[i] != 0) {
+					add(other.offset + i, other.counts[i]);
+				}
+			}
+		}
+
+		/**
+		 * 작은 쪽부터 센 rank 번째 값이 속한 버킷 인덱스
+		 */
+		int indexOfRank(long rank) {
+			long seen = 0;
+			for (int i = 0; i <= top - offset; i++) {
+				seen += counts[i];
+				if (seen > rank) {
+					return offset + i;
+				}
+			}
+			return top;
+		}
+
+		/**
+		 * newOffset 미만의 버킷을 newOffset 버킷으로 합친다.
+		 */
+		private void collapseBelow(int newOffset) {
+			int shift = newOffset - offset;
+			long collapsed = 0;
+			for (int i = 0; i < Math.min(shift, counts.length); i++) {
+				collapsed += counts[i];
+			}
+			long[] shifted = new long[counts.length];
+			if (shift < counts.length) {
+				System.arraycopy(counts, shift, shifted, 0, counts.length - shift);
+			}
+			shifted[0] += collapsed;
+			counts = shifted;
+			offset = newOffset;
+		}
+	}
+}
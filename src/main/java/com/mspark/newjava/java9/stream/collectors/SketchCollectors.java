@@ -0,0 +1,44 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * 그룹의 크기와 관계없이 일정한 메모리로 요약하는 Collector 모음. groupingBy() 의 downstream 으로 사용할 수 있다.
+ *
+ * groupingBy(Expense::getYear, toList()) 후에 정렬하여 분위수나 상위 n 개를 구하면 그룹의 모든 Expense 를 유지해야 한다.
+ * quantiles() 는 QuantileSketch 의 버킷 건수만, topN() 은 n 개의 요소만 유지한다.
+ */
+final class SketchCollectors {
+
+	private SketchCollectors() {
+	}
+
+	/**
+	 * 상대 오차 1% 의 분위수 스케치
+	 */
+	static <T> Collector<T, ?, QuantileSketch> quantiles(ToDoubleFunction<? super T> mapper) {
+		return quantiles(mapper, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+	}
+
+	static <T> Collector<T, ?, QuantileSketch> quantiles(ToDoubleFunction<? super T> mapper, double relativeAccuracy) {
+		return Collector.of(() -> new QuantileSketch(relativeAccuracy, QuantileSketch.DEFAULT_MAX_BUCKETS),
+							(sketch, element) -> sketch.add(mapper.applyAsDouble(element)),
+							QuantileSketch::merge,
+							Collector.Characteristics.UNORDERED,
+							Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	/**
+	 * comparator 기준 상위 n 개를 큰 것부터 정렬하여 돌려준다.
+	 */
+	static <T> Collector<T, ?, List<T>> topN(int n, Comparator<? super T> comparator) {
+		if (n < 1) {
+			throw new IllegalArgumentException("n must be positive: " + n);
+		}
+		return Collector.of(() -> new TopN<T>(n, comparator), TopN::add, TopN::merge, TopN::toList,
+							Collector.Characteristics.UNORDERED);
+	}
+}
@@ -0,0 +1,45 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.EnumMap;
+
+/**
+ * 한 Expense 에 함께 붙은 태그 쌍의 건수. count(a, a) 는 태그 a 가 붙은 Expense 의 수이다.
+ */
+final class TagCoOccurrence {
+	private static final Tag[] TAGS = Tag.values();
+
+	private final long[] counts;
+
+	TagCoOccurrence(long[] counts) {
+		this.counts = counts;
+	}
+
+	long count(Tag first, Tag second) {
+		return counts[first.ordinal() * TAGS.length + second.ordinal()];
+	}
+
+	/**
+	 * 건수가 0 인 쌍은 포함하지 않는다.
+	 */
+	EnumMap<Tag, EnumMap<Tag, Long>> asMap() {
+		EnumMap<Tag, EnumMap<Tag, Long>> map = new EnumMap<>(Tag.class);
+		for (Tag first : TAGS) {
+			EnumMap<Tag, Long> row = new EnumMap<>(Tag.class);
+			for (Tag second : TAGS) {
+				long count = count(first, second);
+				if (count > 0) {
+					row.put(second, count);
+				}
+			}
+			if (!row.isEmpty()) {
+				map.put(first, row);
+			}
+		}
+		return map;
+	}
+
+	@Override
+	public String toString() {
+		return asMap().toString();
+	}
+}
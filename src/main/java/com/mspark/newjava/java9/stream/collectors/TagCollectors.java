@@ -0,0 +1,244 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collector;
+
+/**
+ * Tag 가 작은 enum 이라는 점을 이용한 Collector 모음.
+ *
+ * flatMapping(expense -> expense.getTags().stream(), toSet()) 는 요소마다 Stream 과 Iterator 를 만들고 HashSet 에 Tag 를 넣는다.
+ * 아래의 Collector 들은 Expense.getTagMask() 를 비트 연산으로 누적하므로 요소마다 객체를 만들지 않으며,
+ * 연도별 누적값도 연도를 인덱스로 하는 배열에 저장하여 Integer 키를 만들지 않는다.
+ * 결과 객체(EnumSet, EnumMap)는 finisher 에서 연도마다 한번만 만든다.
+ */
+final class TagCollectors {
+	private static final int TAG_COUNT = Tag.values().length;
+
+	private TagCollectors() {
+	}
+
+	/**
+	 * 태그의 합집합. groupingBy() 의 downstream 으로 사용할 수 있다.
+	 */
+	static Collector<Expense, int[], Set<Tag>> tagUnion() {
+		return Collector.of(() -> new int[1],
+							(mask, expense) -> mask[0] |= expense.getTagMask(),
+							(left, right) -> {
+								left[0] |= right[0];
+								return left;
+							},
+							mask -> TagMask.toEnumSet(mask[0]),
+							Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * 연도별 태그의 합집합. groupingBy(Expense::getYear, flatMapping(..., toSet())) 와 같은 결과를 연도순으로 돌려준다.
+	 */
+	static Collector<Expense, ?, Map<Integer, Set<Tag>>> tagUnionByYear() {
+		return Collector.of(YearTagUnion::new, YearTagUnion::add, YearTagUnion::merge, YearTagUnion::toMap,
+							Collector.Characteristics.UNORDERED);
+	}
+
+	static Collector<Expense, ?, YearTagCounts> tagCountsByYear() {
+		return Collector.of(YearTagCounter::new, YearTagCounter::add, YearTagCounter::merge, YearTagCounter::toCounts,
+							Collector.Characteristics.UNORDERED);
+	}
+
+	static Collector<Expense, ?, TagCoOccurrence> tagCoOccurrence() {
+		return Collector.of(() -> new long[TAG_COUNT * TAG_COUNT],
+							TagCollectors::addCoOccurrence,
+							(left, right) -> {
+								for (int i = 0; i < left.length; i++) {
+									left[i] += right[i];
+								}
+								return left;
+							},
+							TagCoOccurrence::new,
+							Collector.Characteristics.UNORDERED);
+	}
+
+	private static void addCoOccurrence(long[] counts, Expense expense) {
+		int mask = expense.getTagMask();
+		for (int first = mask; first != 0; first &= first - 1) {
+			int row = Integer.numberOfTrailingZeros(first) * TAG_COUNT;
+			for (int second = mask; second != 0; second &= second - 1) {
+				counts[row + Integer.numberOfTrailingZeros(second)]++;
+			}
+		}
+	}
+
+	/**
+	 * 연도 범위가 YearTotals.MAX_DENSE_YEAR_RANGE 를 넘으면 배열 대신 IntObjectMap 에 연도별로 누적한다.
+	 */
+	private static final class YearTagUnion {
+		private int firstYear;
+		private int[] masks = new int[0];
+		private boolean[] present = new boolean[0];
+		private IntObjectMap<int[]> sparse;
+
+		void add(Expense expense) {
+			union(expense.getYear(), expense.getTagMask());
+		}
+
+		YearTagUnion merge(YearTagUnion other) {
+			if (other.sparse != null) {
+				other.sparse.forEach((mask, year) -> union(year, mask[0]));
+				return this;
+			}
+			for (int index = 0; index < other.masks.length; index++) {
+				if (other.present[index]) {
+					union(other.firstYear + index, other.masks[index]);
+				}
+			}
+			return this;
+		}
+
+		Map<Integer, Set<Tag>> toMap() {
+			Map<Integer, Set<Tag>> tagsByYear = new TreeMap<>();
+			if (sparse != null) {
+				sparse.forEach((mask, year) -> tagsByYear.put(year, TagMask.toEnumSet(mask[0])));
+				return tagsByYear;
+			}
+			for (int index = 0; index < masks.length; index++) {
+				if (present[index]) {
+					tagsByYear.put(firstYear + index, TagMask.toEnumSet(masks[index]));
+				}
+			}
+			return tagsByYear;
+		}
+
+		private void union(int year, int mask) {
+			if (sparse == null && masks.length > 0
+					&& !YearTotals.fitsDense(Math.min(firstYear, year), Math.max(firstYear + masks.length - 1, year))) {
+				sparse = new IntObjectMap<>(16);
+				for (int index = 0; index < masks.length; index++) {
+					if (present[index]) {
+						sparse.put(firstYear + index, new int[] {masks[index]});
+					}
+				}
+				masks = new int[0];
+				present = new boolean[0];
+			}
+			if (sparse != null) {
+				sparse.computeIfAbsent(year, key -> new int[1])[0] |= mask;
+				return;
+			}
+			int index = slot(year);
+			masks[index] |= mask;
+			present[index] = true;
+		}
+
+		private int slot(int year) {
+			if (masks.length == 0) {
+				firstYear = year;
+				masks = new int[1];
+				present = new boolean[1];
+			} else if (year < firstYear) {
+				int shift = firstYear - year;
+				masks = shifted(masks, shift);
+				present = shifted(present, shift);
+				firstYear = year;
+			} else if (year - firstYear >= masks.length) {
+				masks = Arrays.copyOf(masks, year - firstYear + 1);
+				present = Arrays.copyOf(present, masks.length);
+			}
+			return year - firstYear;
+		}
+
+		private static int[] shifted(int[] values, int shift) {
+			int[] grown = new int[values.length + shift];
+			System.arraycopy(values, 0, grown, shift, values.length);
+			return grown;
+		}
+
+		private static boolean[] shifted(boolean[] values, int shift) {
+			boolean[] grown = new boolean[values.length + shift];
+			System.arraycopy(values, 0, grown, shift, values.length);
+			return grown;
+		}
+	}
+
+	/**
+	 * YearTagUnion 과 같이 연도 범위가 넓으면 IntObjectMap 에 연도별 행을 둔다.
+	 */
+	private static final class YearTagCounter {
+		private int firstYear;
+		private long[][] counts = new long[0][];
+		private IntObjectMap<long[]> sparse;
+
+		void add(Expense expense) {
+			long[] row = row(expense.getYear());
+			for (int mask = expense.getTagMask(); mask != 0; mask &= mask - 1) {
+				row[Integer.numberOfTrailingZeros(mask)]++;
+			}
+		}
+
+		YearTagCounter merge(YearTagCounter other) {
+			if (other.sparse != null) {
+				other.sparse.forEach((otherRow, year) -> addRow(year, otherRow));
+				return this;
+			}
+			for (int index = 0; index < other.counts.length; index++) {
+				if (other.counts[index] != null) {
+					addRow(other.firstYear + index, other.counts[index]);
+				}
+			}
+			return this;
+		}
+
+		YearTagCounts toCounts() {
+			if (sparse == null) {
+				return new YearTagCounts(firstYear, counts);
+			}
+			int[] years = sparse.keys();
+			long[][] rows = new long[years.length][];
+			for (int i = 0; i < years.length; i++) {
+				rows[i] = sparse.get(years[i]);
+			}
+			return YearTagCounts.sparse(years, rows);
+		}
+
+		private void addRow(int year, long[] otherRow) {
+			long[] row = row(year);
+			for (int tag = 0; tag < TAG_COUNT; tag++) {
+				row[tag] += otherRow[tag];
+			}
+		}
+
+		private long[] row(int year) {
+			if (sparse == null && counts.length > 0
+					&& !YearTotals.fitsDense(Math.min(firstYear, year), Math.max(firstYear + counts.length - 1, year))) {
+				sparse = new IntObjectMap<>(16);
+				for (int index = 0; index < counts.length; index++) {
+					if (counts[index] != null) {
+						sparse.put(firstYear + index, counts[index]);
+					}
+				}
+				counts = new long[0][];
+			}
+			if (sparse != null) {
+				return sparse.computeIfAbsent(year, key -> new long[TAG_COUNT]);
+			}
+			if (counts.length == 0) {
+				firstYear = year;
+				counts = new long[1][];
+			} else if (year < firstYear) {
+				int shift = firstYear - year;
+				long[][] grown = new long[counts.length + shift][];
+				System.arraycopy(counts, 0, grown, shift, counts.length);
+				counts = grown;
+				firstYear = year;
+			} else if (year - firstYear >= counts.length) {
+				counts = Arrays.copyOf(counts, year - firstYear + 1);
+			}
+			int index = year - firstYear;
+			if (counts[index] == null) {
+				counts[index] = new long[TAG_COUNT];
+			}
+			return counts[index];
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Tag 집합을 ordinal 번째 비트로 표현하는 int 비트마스크 유틸리티.
+ */
+final class TagMask {
+	private static final Tag[] TAGS = Tag.values();
+	private static final int MAX_CACHED_TAGS = 10;
+	private static final List<List<Tag>> CACHED_LISTS = new ArrayList<>();
+
+	static {
+		if (TAGS.length > Integer.SIZE) {
+			throw new IllegalStateException("Tag has more than " + Integer.SIZE + " constants");
+		}
+		if (TAGS.length <= MAX_CACHED_TAGS) {
+			for (int mask = 0; mask < 1 << TAGS.length; mask++) {
+				CACHED_LISTS.add(List.of(toEnumSet(mask).toArray(new Tag[0])));
+			}
+		}
+	}
+
+	private TagMask() {
+	}
+
+	static int bit(Tag tag) {
+		return 1 << tag.ordinal();
+	}
+
+	static int of(Collection<Tag> tags) {
+		int mask = 0;
+		for (Tag tag : tags) {
+			mask |= bit(tag);
+		}
+		return mask;
+	}
+
+	static boolean contains(int mask, Tag tag) {
+		return (mask & bit(tag)) != 0;
+	}
+
+	/**
+	 * ordinal 순서의 불변 리스트. 태그 조합이 적으면 미리 만들어 둔 리스트를 돌려주므로 할당이 없다.
+	 */
+	static List<Tag> toList(int mask) {
+		if (mask >= 0 && mask < CACHED_LISTS.size()) {
+			return CACHED_LISTS.get(mask);
+		}
+		return List.of(toEnumSet(mask).toArray(new Tag[0]));
+	}
+
+	static EnumSet<Tag> toEnumSet(int mask) {
+		EnumSet<Tag> tags = EnumSet.noneOf(Tag.class);
+		for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+			tags.add(TAGS[Integer.numberOfTrailingZeros(remaining)]);
+		}
+		return tags;
+	}
+}
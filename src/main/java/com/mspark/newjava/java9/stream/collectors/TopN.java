@@ -0,0 +1,52 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * comparator 기준으로 가장 큰 n 개만 유지하는 최소 힙.
+ *
+ * 요소 하나를 넣는 비용은 O(log n), 메모리는 O(n) 이다. 병합은 다른 쪽의 요소를 하나씩 넣으므로
+ * 어떤 순서로 합치더라도 결과는 정확한 상위 n 개이다. 단, 경계에서 comparator 가 같은 요소들 중 어느 것이 남는지는 정해지지 않는다.
+ */
+final class TopN<T> {
+	private final int n;
+	private final Comparator<? super T> comparator;
+	private final PriorityQueue<T> heap;
+
+	TopN(int n, Comparator<? super T> comparator) {
+		if (n < 1) {
+			throw new IllegalArgumentException("n must be positive: " + n);
+		}
+		this.n = n;
+		this.comparator = comparator;
+		this.heap = new PriorityQueue<>(Math.min(n, 1024), comparator);
+	}
+
+	void add(T element) {
+		if (heap.size() < n) {
+			heap.add(element);
+		} else if (comparator.compare(element, heap.peek()) > 0) {
+			heap.poll();
+			heap.add(element);
+		}
+	}
+
+	TopN<T> merge(TopN<T> other) {
+		for (T element : other.heap) {
+			add(element);
+		}
+		return this;
+	}
+
+	/**
+	 * 큰 것부터 정렬된 상위 n 개
+	 */
+	List<T> toList() {
+		List<T> sorted = new ArrayList<>(heap);
+		sorted.sort(comparator.reversed());
+		return sorted;
+	}
+}
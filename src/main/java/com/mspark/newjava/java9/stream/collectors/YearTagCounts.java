@@ -0,0 +1,78 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.stream.IntStream;
+
+/**
+ * 연도별 태그 건수. counts[연도 - firstYear][tag.ordinal()]
+ *
+ * 연도 범위가 넓으면 sparse() 로 존재하는 연도만 정렬된 배열에 두고 이진 탐색한다. 이때 counts[i] 는 sparseYears[i] 의 행이다.
+ */
+final class YearTagCounts {
+	private static final Tag[] TAGS = Tag.values();
+
+	private final int firstYear;
+	private final int[] sparseYears;
+	private final long[][] counts;
+
+	YearTagCounts(int firstYear, long[][] counts) {
+		this(firstYear, null, counts);
+	}
+
+	private YearTagCounts(int firstYear, int[] sparseYears, long[][] counts) {
+		this.firstYear = firstYear;
+		this.sparseYears = sparseYears;
+		this.counts = counts;
+	}
+
+	/**
+	 * @param years 오름차순이고 중복이 없는 연도. counts[i] 는 years[i] 의 행이다.
+	 */
+	static YearTagCounts sparse(int[] years, long[][] counts) {
+		return new YearTagCounts(years.length == 0 ? 0 : years[0], years, counts);
+	}
+
+	long count(int year, Tag tag) {
+		long[] row = row(year);
+		return row == null ? 0 : row[tag.ordinal()];
+	}
+
+	/**
+	 * 건수가 0 인 태그는 포함하지 않는다.
+	 */
+	EnumMap<Tag, Long> counts(int year) {
+		EnumMap<Tag, Long> countsByTag = new EnumMap<>(Tag.class);
+		long[] row = row(year);
+		if (row != null) {
+			for (Tag tag : TAGS) {
+				if (row[tag.ordinal()] > 0) {
+					countsByTag.put(tag, row[tag.ordinal()]);
+				}
+			}
+		}
+		return countsByTag;
+	}
+
+	IntStream years() {
+		return IntStream.range(0, counts.length)
+						.filter(index -> counts[index] != null)
+						.map(index -> sparseYears == null ? firstYear + index : sparseYears[index]);
+	}
+
+	private long[] row(int year) {
+		if (sparseYears != null) {
+			int index = Arrays.binarySearch(sparseYears, year);
+			return index < 0 ? null : counts[index];
+		}
+		long index = (long) year - firstYear;
+		return index < 0 || index >= counts.length ? null : counts[(int) index];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		years().forEach(year -> builder.append(builder.length() > 1 ? ", " : "").append(year).append("=").append(counts(year)));
+		return builder.append("}").toString();
+	}
+}
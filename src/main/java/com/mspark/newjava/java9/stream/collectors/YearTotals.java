@@ -0,0 +1,90 @@
+package com.mspark.newjava.java9.stream.collectors;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * 연도별 건수와 금액 합계. firstYear 부터 연속된 연도를 배열의 인덱스로 사용한다.
+ *
+ * 연도 범위가 MAX_DENSE_YEAR_RANGE 보다 넓으면 (예: 잘못 입력된 연도 하나) 범위 크기의 배열을 만들지 않도록
+ * sparse() 로 존재하는 연도만 정렬된 배열에 두고 이진 탐색한다.
+ */
+final class YearTotals {
+	static final int MAX_DENSE_YEAR_RANGE = 1024;
+
+	private final int firstYear;
+	private final int[] sparseYears;
+	private final long[] counts;
+	private final long[] sums;
+
+	YearTotals(int firstYear, long[] counts, long[] sums) {
+		this(firstYear, null, counts, sums);
+	}
+
+	private YearTotals(int firstYear, int[] sparseYears, long[] counts, long[] sums) {
+		this.firstYear = firstYear;
+		this.sparseYears = sparseYears;
+		this.counts = counts;
+		this.sums = sums;
+	}
+
+	/**
+	 * @param years 오름차순이고 중복이 없는 연도. counts[i], sums[i] 는 years[i] 의 값이다.
+	 */
+	static YearTotals sparse(int[] years, long[] counts, long[] sums) {
+		return new YearTotals(years.length == 0 ? 0 : years[0], years, counts, sums);
+	}
+
+	/**
+	 * minYear ~ maxYear 를 배열의 인덱스로 써도 되는지. 비어있는 경우(minYear > maxYear)도 true 이다.
+	 */
+	static boolean fitsDense(int minYear, int maxYear) {
+		return (long) maxYear - minYear < MAX_DENSE_YEAR_RANGE;
+	}
+
+	long count(int year) {
+		int index = index(year);
+		return index < 0 ? 0 : counts[index];
+	}
+
+	long sum(int year) {
+		int index = index(year);
+		return index < 0 ? 0 : sums[index];
+	}
+
+	/**
+	 * 한건 이상 존재하는 연도
+	 */
+	IntStream years() {
+		return IntStream.range(0, counts.length)
+						.filter(index -> counts[index] > 0)
+						.map(index -> sparseYears == null ? firstYear + index : sparseYears[index]);
+	}
+
+	Map<Integer, Long> sumsByYear() {
+		Map<Integer, Long> sumsByYear = new TreeMap<>();
+		years().forEach(year -> sumsByYear.put(year, sum(year)));
+		return sumsByYear;
+	}
+
+	/**
+	 * @return 없는 연도이면 음수
+	 */
+	private int index(int year) {
+		if (sparseYears != null) {
+			return Arrays.binarySearch(sparseYears, year);
+		}
+		long index = (long) year - firstYear;
+		return index < 0 || index >= counts.length ? -1 : (int) index;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		years().forEach(year -> builder.append(builder.length() > 1 ? ", " : "")
+									   .append(year).append("=").append(count(year)).append("/").append(sum(year)));
+		return builder.append("}").toString();
+	}
+}